@@ -13,6 +13,8 @@ $ActivitiesFolders = @{"ExternalAppAuthenticationEntry" = "entries\\authenticati
                        "RobotEntry" = "entries\\job\\RobotEntry";
                        "TestProjectEntry" = "entries\\testExecutionTarget\\TestProjectEntry";
                        "TestSetEntry" = "entries\\testExecutionTarget\\TestSetEntry";
+                       "UiPathGlobalConfiguration" = "configuration\\UiPathGlobalConfiguration";
+                       "UiPathAnalyze" = "UiPathAnalyze";
                        "UiPathAssets" = "UiPathAssets";
                        "UiPathDeploy" = "UiPathDeploy";
                        "UiPathPack" = "UiPathPack";
@@ -0,0 +1,633 @@
+package com.uipath.uipathpackage;
+
+import com.google.common.collect.ImmutableList;
+import com.uipath.uipathpackage.configuration.UiPathCliConfiguration;
+import com.uipath.uipathpackage.entries.SelectEntry;
+import com.uipath.uipathpackage.entries.authentication.ExternalAppAuthenticationEntry;
+import com.uipath.uipathpackage.entries.authentication.TokenAuthenticationEntry;
+import com.uipath.uipathpackage.entries.authentication.UserPassAuthenticationEntry;
+import com.uipath.uipathpackage.models.AnalyzeOptions;
+import com.uipath.uipathpackage.models.CommonOptions;
+import com.uipath.uipathpackage.util.*;
+import hudson.*;
+import hudson.model.*;
+import hudson.tasks.BuildStepDescriptor;
+import hudson.tasks.Builder;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.FormValidation;
+import hudson.util.ListBoxModel;
+import hudson.util.NamingThreadFactory;
+import hudson.util.StreamTaskListener;
+import jenkins.model.Jenkins;
+import jenkins.tasks.SimpleBuildStep;
+import org.apache.commons.lang.StringUtils;
+import org.jenkinsci.Symbol;
+import org.kohsuke.stapler.AncestorInPath;
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
+import org.kohsuke.stapler.QueryParameter;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URISyntaxException;
+import java.security.InvalidParameterException;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static hudson.slaves.WorkspaceList.tempDir;
+
+/**
+ * Runs the workflow analysis of one or many projects, several projects at a time,
+ * and merges their rule violations into a single JUnit report.
+ */
+public class UiPathAnalyze extends Builder implements SimpleBuildStep {
+    private static final int DEFAULT_MAX_PARALLELISM = 4;
+    private static final String DEFAULT_REPORT_PATH = "UiPathAnalysis.xml";
+    private final Utility util = new Utility();
+    private final String projectJsonPath;
+    private final TraceLevel traceLevel;
+    private String projectJsonGlob;
+    private int maxParallelism;
+    private String reportPath;
+    private boolean treatWarningsAsErrors;
+    private boolean skipUnchanged;
+    private String ignoredRules;
+    private String governanceFilePath;
+    private Boolean disableBuiltInNugetFeeds;
+    private boolean useOrchestrator;
+    private String orchestratorAddress;
+    private String orchestratorTenant;
+    private SelectEntry credentials;
+
+    /**
+     * Data bound constructor responsible for setting the values param values to state
+     *
+     * @param projectJsonPath Project Json Path
+     * @param traceLevel      The trace logging level. One of the following values: None, Critical, Error, Warning, Information, Verbose. (default None)
+     */
+    @DataBoundConstructor
+    public UiPathAnalyze(String projectJsonPath, TraceLevel traceLevel) {
+        this.projectJsonPath = projectJsonPath;
+        this.traceLevel = traceLevel;
+        this.projectJsonGlob = null;
+        this.maxParallelism = DEFAULT_MAX_PARALLELISM;
+        this.reportPath = DEFAULT_REPORT_PATH;
+        this.treatWarningsAsErrors = false;
+        this.skipUnchanged = false;
+        this.ignoredRules = null;
+        this.governanceFilePath = null;
+        this.disableBuiltInNugetFeeds = null;
+        this.orchestratorAddress = "";
+        this.orchestratorTenant = "";
+        this.credentials = null;
+    }
+
+    /**
+     * Run this step.
+     *
+     * @param run       a build this is running as a part of
+     * @param workspace a workspace to use for any file operations
+     * @param launcher  a way to start processes
+     * @param listener  a place to send output
+     * @throws InterruptedException if the step is interrupted
+     * @throws IOException          if something goes wrong
+     */
+    @Override
+    public void perform(@Nonnull Run<?, ?> run, @Nonnull FilePath workspace, @Nonnull EnvVars env, @Nonnull Launcher launcher, @Nonnull TaskListener listener) throws InterruptedException, IOException {
+        validateParameters();
+
+        FilePath tempRemoteDir = tempDir(workspace);
+        /**
+         * Adding the null check here as above method "tempDir" is annotated with @CheckForNull
+         * and findbugs plugin will report an error of NPE while building the plugin.
+         */
+        if (Objects.isNull(tempRemoteDir)) {
+            throw new AbortException(com.uipath.uipathpackage.Messages.GenericErrors_FailedToCreateTempFolderAnalyze());
+        }
+        tempRemoteDir.mkdirs();
+
+        try {
+            EnvVars envVars = TaskScopedEnvVarsManager.addRequiredEnvironmentVariables(run, env, listener);
+            util.validateRuntime(launcher, envVars);
+
+            CliDetails cliDetails = util.getCliDetails(run, listener, envVars, launcher);
+
+            FilePath expandedProjectJsonPath = resolvePath(projectJsonPath, workspace, envVars, launcher);
+            FilePath expandedReportPath = resolvePath(StringUtils.isNotBlank(reportPath) ? reportPath : DEFAULT_REPORT_PATH, workspace, envVars, launcher);
+
+            // the credentials are resolved once and copied to every analysis
+            CommonOptions resolvedCredentials = null;
+            if (useOrchestrator) {
+                resolvedCredentials = new CommonOptions();
+                util.setCredentialsFromCredentialsEntry(credentials, resolvedCredentials, run);
+            }
+
+            FilePath[] projects;
+            if (StringUtils.isNotBlank(projectJsonGlob)) {
+                projects = expandedProjectJsonPath.list(envVars.expand(projectJsonGlob));
+                if (projects.length == 0) {
+                    throw new AbortException("No project matches " + projectJsonGlob + " under " + expandedProjectJsonPath.getRemote());
+                }
+                Arrays.sort(projects, Comparator.comparing(FilePath::getRemote));
+            } else {
+                projects = new FilePath[]{expandedProjectJsonPath};
+            }
+
+            // the governance file is validated once and all the analyses use the same cached copy
+            GovernanceCache.Policy governancePolicy = null;
+            if (StringUtils.isNotBlank(governanceFilePath)) {
+                governancePolicy = GovernanceCache.resolve(run, resolvePath(governanceFilePath, workspace, envVars, launcher), tempRemoteDir, launcher, envVars, listener);
+            }
+
+            AnalysisReport report = new AnalysisReport();
+            List<AnalysisResult> results = analyzeProjects(projects, tempRemoteDir, envVars, launcher, listener, cliDetails, resolvedCredentials, governancePolicy, report, run);
+
+            report.writeJUnit(expandedReportPath, treatWarningsAsErrors);
+            listener.getLogger().println("Workflow analysis report written to " + expandedReportPath.getRemote());
+            printSummary(results, report, listener.getLogger());
+        } catch (URISyntaxException e) {
+            e.printStackTrace(listener.getLogger());
+            throw new AbortException(e.getMessage());
+        } finally {
+            try {
+                Objects.requireNonNull(tempRemoteDir).deleteRecursive();
+            } catch(Exception e) {
+                listener.getLogger().println(com.uipath.uipathpackage.Messages.GenericErrors_FailedToDeleteTempAnalyze() + e.getMessage());
+                e.printStackTrace(listener.getLogger());
+            }
+        }
+    }
+
+    /**
+     * Analyzes the projects, up to maxParallelism CLI processes at once.
+     * The analysis never stops on the first violation, so each project reports all its violations in a single run.
+     * The violations of a project are printed as soon as its analysis is done, followed by its buffered CLI output.
+     */
+    private List<AnalysisResult> analyzeProjects(@Nonnull FilePath[] projects, @Nonnull FilePath tempRemoteDir, @Nonnull EnvVars envVars, @Nonnull Launcher launcher, @Nonnull TaskListener listener, @Nonnull CliDetails cliDetails, @CheckForNull CommonOptions resolvedCredentials, @CheckForNull GovernanceCache.Policy governancePolicy, @Nonnull AnalysisReport report, @Nonnull Run<?, ?> run) throws IOException, InterruptedException {
+        PrintStream logger = listener.getLogger();
+        int parallelism = Math.min(getMaxParallelism(), projects.length);
+        logger.println("Analyzing " + projects.length + " projects, " + parallelism + " at a time");
+
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism, new NamingThreadFactory(new DaemonThreadFactory(), "UiPath analyze"));
+        List<Future<AnalysisResult>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < projects.length; i++) {
+                FilePath project = projects[i];
+                FilePath projectTempDir = tempRemoteDir.child("project-" + i);
+                futures.add(executor.submit(() -> {
+                    ByteArrayOutputStream output = new ByteArrayOutputStream();
+                    StreamTaskListener projectListener = new StreamTaskListener(output, run.getCharset());
+                    long startTime = System.nanoTime();
+                    List<List<AnalysisReport.Violation>> found = new ArrayList<>(1);
+                    String error = ParallelTasks.run(() -> {
+                        projectTempDir.mkdirs();
+                        found.add(analyzeProject(project, projectTempDir, envVars, launcher, projectListener, cliDetails, resolvedCredentials, governancePolicy));
+                    }, projectListener);
+                    List<AnalysisReport.Violation> violations = found.isEmpty() ? Collections.emptyList() : found.get(0);
+                    long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+                    List<AnalysisReport.Violation> added = report.add(project.getRemote(), violations, elapsedMillis);
+
+                    projectListener.getLogger().flush();
+                    synchronized (logger) {
+                        logger.println("----- " + project.getRemote() + " -----");
+                        for (AnalysisReport.Violation violation : added) {
+                            logger.println(violation);
+                        }
+                        logger.write(output.toByteArray());
+                    }
+                    return new AnalysisResult(project.getRemote(), error, violations.size(), elapsedMillis);
+                }));
+            }
+
+            List<AnalysisResult> results = new ArrayList<>();
+            for (Future<AnalysisResult> future : futures) {
+                results.add(ParallelTasks.await(future));
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Analyzes a project, skipped when its files, policy and options are the ones of a previous analysis which found no violation
+     */
+    private List<AnalysisReport.Violation> analyzeProject(@Nonnull FilePath project, @Nonnull FilePath projectTempDir, @Nonnull EnvVars envVars, @Nonnull Launcher launcher, @Nonnull TaskListener listener, @Nonnull CliDetails cliDetails, @CheckForNull CommonOptions resolvedCredentials, @CheckForNull GovernanceCache.Policy governancePolicy) throws IOException, InterruptedException, URISyntaxException {
+        String analysisKey = null;
+        if (skipUnchanged) {
+            String filesHash = PackManifest.computeInputsHash(project, projectTempDir, Collections.emptyList(), "");
+            analysisKey = GovernanceCache.getAnalysisKey(filesHash, governancePolicy != null ? governancePolicy.getSha256() : "", getAnalysisFingerprint(envVars));
+            if (GovernanceCache.isClean(analysisKey)) {
+                listener.getLogger().println("The project and its policy passed the workflow analysis of a previous build, skipping the analysis");
+                return Collections.emptyList();
+            }
+        }
+
+        FilePath resultFile = projectTempDir.child("analysis.json");
+        AnalyzeOptions analyzeOptions = new AnalyzeOptions();
+        analyzeOptions.setProjectPath(project.getRemote());
+        analyzeOptions.setStopOnRuleViolation(false);
+        analyzeOptions.setTreatWarningsAsErrors(treatWarningsAsErrors);
+        analyzeOptions.setResultPath(resultFile.getRemote());
+        if (StringUtils.isNotBlank(ignoredRules)) {
+            analyzeOptions.setIgnoredRules(envVars.expand(ignoredRules.trim()));
+        }
+        if (governancePolicy != null) {
+            analyzeOptions.setGovernanceFilePath(governancePolicy.getPath());
+        }
+        if (disableBuiltInNugetFeeds != null && disableBuiltInNugetFeeds) {
+            analyzeOptions.setDisableBuiltInNugetFeeds(true);
+        }
+
+        if (cliDetails.getActualVersion().supportsNewTelemetry()) {
+            analyzeOptions.populateAdditionalTelemetryData();
+            analyzeOptions.setPipelineCorrelationId(envVars.get(EnvironmentVariablesConsts.BUILD_TAG));
+            analyzeOptions.setCliGetFlow(cliDetails.getGetFlow());
+        }
+
+        if (resolvedCredentials != null) {
+            analyzeOptions.setOrchestratorUrl(orchestratorAddress);
+            analyzeOptions.setOrchestratorTenant(orchestratorTenant);
+
+            Utility.copyCredentials(resolvedCredentials, analyzeOptions);
+        }
+
+        String language = Locale.getDefault().getLanguage();
+        String country = Locale.getDefault().getCountry();
+        String localization = country.isEmpty() ? language : language + "-" + country;
+        analyzeOptions.setLanguage(localization);
+
+        analyzeOptions.setTraceLevel(traceLevel);
+
+        int result = util.execute("AnalyzeOptions", analyzeOptions, projectTempDir, listener, envVars, launcher, false);
+        List<AnalysisReport.Violation> violations = Collections.emptyList();
+        if (resultFile.exists()) {
+            violations = AnalysisReport.parse(project.getRemote(), resultFile.readToString());
+        } else if (result != 0) {
+            throw new AbortException("Failed to run the command, the CLI failed with error code " + result);
+        }
+
+        if (analysisKey != null && result == 0 && violations.isEmpty()) {
+            GovernanceCache.markClean(analysisKey);
+        }
+        return violations;
+    }
+
+    /**
+     * Fingerprint of the options affecting the workflow analysis, the governance file is covered by its own hash
+     */
+    private String getAnalysisFingerprint(@Nonnull EnvVars envVars) throws IOException {
+        return String.join("|", Arrays.asList(
+                "analyze",
+                UiPathCliConfiguration.getInstance().getSelectedOrDefaultCliVersionKey(envVars),
+                String.valueOf(treatWarningsAsErrors),
+                String.valueOf(ignoredRules),
+                String.valueOf(disableBuiltInNugetFeeds),
+                useOrchestrator ? orchestratorAddress + "/" + orchestratorTenant : ""));
+    }
+
+    private void printSummary(@Nonnull List<AnalysisResult> results, @Nonnull AnalysisReport report, @Nonnull PrintStream logger) throws AbortException {
+        int failed = 0;
+        logger.println("Workflow analysis summary:");
+        for (AnalysisResult result : results) {
+            if (result.error != null) {
+                failed++;
+            }
+            logger.println(String.format(Locale.ENGLISH, "  %-6s %8.1f s  %4d violations  %s", result.error == null ? "OK" : "FAILED", result.elapsedMillis / 1000d, result.violations, result.project));
+        }
+
+        int errors = report.countErrors(treatWarningsAsErrors);
+        logger.println(report.size() + " distinct violations, " + errors + " failing the analysis");
+
+        if (failed > 0) {
+            throw new AbortException(failed + " of " + results.size() + " projects failed to be analyzed");
+        }
+        if (errors > 0) {
+            throw new AbortException("The workflow analysis found " + errors + " rule violations");
+        }
+    }
+
+    private static FilePath resolvePath(@Nonnull String path, @Nonnull FilePath workspace, @Nonnull EnvVars envVars, @Nonnull Launcher launcher) {
+        return path.contains("${WORKSPACE}") ?
+                new FilePath(launcher.getChannel(), envVars.expand(path)) :
+                workspace.child(envVars.expand(path));
+    }
+
+    private static final class AnalysisResult {
+        private final String project;
+        private final String error;
+        private final int violations;
+        private final long elapsedMillis;
+
+        private AnalysisResult(@Nonnull String project, @CheckForNull String error, int violations, long elapsedMillis) {
+            this.project = project;
+            this.error = error;
+            this.violations = violations;
+            this.elapsedMillis = elapsedMillis;
+        }
+    }
+
+    @DataBoundSetter
+    public void setProjectJsonGlob(String projectJsonGlob) {
+        this.projectJsonGlob = projectJsonGlob;
+    }
+
+    @DataBoundSetter
+    public void setMaxParallelism(int maxParallelism) {
+        this.maxParallelism = maxParallelism;
+    }
+
+    @DataBoundSetter
+    public void setReportPath(String reportPath) {
+        this.reportPath = reportPath;
+    }
+
+    @DataBoundSetter
+    public void setTreatWarningsAsErrors(boolean treatWarningsAsErrors) {
+        this.treatWarningsAsErrors = treatWarningsAsErrors;
+    }
+
+    @DataBoundSetter
+    public void setSkipUnchanged(boolean skipUnchanged) {
+        this.skipUnchanged = skipUnchanged;
+    }
+
+    @DataBoundSetter
+    public void setIgnoredRules(String ignoredRules) {
+        this.ignoredRules = ignoredRules;
+    }
+
+    @DataBoundSetter
+    public void setGovernanceFilePath(String governanceFilePath) {
+        this.governanceFilePath = governanceFilePath;
+    }
+
+    @DataBoundSetter
+    public void setDisableBuiltInNugetFeeds(Boolean disableBuiltInNugetFeeds) {
+        this.disableBuiltInNugetFeeds = disableBuiltInNugetFeeds;
+    }
+
+    @DataBoundSetter
+    public void setUseOrchestrator(boolean useOrchestrator) {
+        this.useOrchestrator = useOrchestrator;
+
+        if (!useOrchestrator) {
+            this.orchestratorAddress = null;
+            this.orchestratorTenant = null;
+            this.credentials = null;
+        }
+    }
+
+    @DataBoundSetter
+    public void setOrchestratorAddress(String orchestratorAddress) {
+        this.orchestratorAddress = orchestratorAddress;
+    }
+
+    @DataBoundSetter
+    public void setOrchestratorTenant(String orchestratorTenant) {
+        this.orchestratorTenant = orchestratorTenant;
+    }
+
+    @DataBoundSetter
+    public void setCredentials(SelectEntry credentials) {
+        this.credentials = credentials;
+    }
+
+    /**
+     * Provides the project json path
+     *
+     * @return String projectJsonPath
+     */
+    public String getProjectJsonPath() {
+        return projectJsonPath;
+    }
+
+    /**
+     * Provides the Ant-style pattern of the projects analyzed under the project(s) path
+     *
+     * @return String projectJsonGlob
+     */
+    public String getProjectJsonGlob() {
+        return projectJsonGlob;
+    }
+
+    /**
+     * Provides the maximum number of projects analyzed at the same time
+     *
+     * @return int maxParallelism
+     */
+    public int getMaxParallelism() {
+        return maxParallelism > 0 ? maxParallelism : DEFAULT_MAX_PARALLELISM;
+    }
+
+    /**
+     * Provides the path of the merged JUnit report
+     *
+     * @return String reportPath
+     */
+    public String getReportPath() {
+        return reportPath;
+    }
+
+    /**
+     * Treat warnings as errors
+     *
+     * @return boolean treatWarningsAsErrors
+     */
+    public boolean getTreatWarningsAsErrors() {
+        return treatWarningsAsErrors;
+    }
+
+    /**
+     * Skip the projects unchanged since an analysis which found no violation
+     *
+     * @return boolean skipUnchanged
+     */
+    public boolean getSkipUnchanged() {
+        return skipUnchanged;
+    }
+
+    /**
+     * Provides the rules ignored by the analysis, separated by commas
+     *
+     * @return String ignoredRules
+     */
+    public String getIgnoredRules() {
+        return ignoredRules;
+    }
+
+    /**
+     * Provides the governance file path
+     *
+     * @return String governanceFilePath
+     */
+    public String getGovernanceFilePath() {
+        return governanceFilePath;
+    }
+
+    /**
+     * Disable built-in NuGet feeds
+     *
+     * @return Boolean disableBuiltInNugetFeeds
+     */
+    public Boolean getDisableBuiltInNugetFeeds() {
+        return disableBuiltInNugetFeeds;
+    }
+
+    /**
+     * Use orchestrator
+     *
+     * @return boolean useOrchestrator
+     */
+    public boolean getUseOrchestrator() {
+        return useOrchestrator;
+    }
+
+    /**
+     * Orchestrator address
+     *
+     * @return String orchestratorAddress
+     */
+    public String getOrchestratorAddress() {
+        return orchestratorAddress;
+    }
+
+    /**
+     * Orchestrator tenant
+     *
+     * @return String orchestratorTenant
+     */
+    public String getOrchestratorTenant() {
+        return orchestratorTenant;
+    }
+
+    /**
+     * Credentials
+     *
+     * @return SelectEntry credentials
+     */
+    public SelectEntry getCredentials() {
+        return credentials;
+    }
+
+    /**
+     * traceLevel
+     *
+     * @return TraceLevel traceLevel
+     */
+    public TraceLevel getTraceLevel() {
+        return traceLevel;
+    }
+
+    private void validateParameters() throws AbortException {
+        util.validateParams(projectJsonPath, com.uipath.uipathpackage.Messages.ValidationErrors_InvalidProject());
+
+        if (useOrchestrator) {
+            util.validateParams(orchestratorAddress, com.uipath.uipathpackage.Messages.ValidationErrors_InvalidOrchAddress());
+
+            if (credentials == null) {
+                throw new InvalidParameterException(com.uipath.uipathpackage.Messages.ValidationErrors_InvalidCredentialsType());
+            }
+
+            credentials.validateParameters();
+        }
+    }
+
+    /**
+     * {@link Descriptor} for {@link Builder}
+     */
+    @Symbol("UiPathAnalyze")
+    @Extension
+    public static class DescriptorImpl extends BuildStepDescriptor<Builder> {
+
+        /**
+         * Returns true if this task is applicable to the given project.
+         *
+         * @return true to allow user to configure this post-promotion task for the given project.
+         * @see AbstractProject.AbstractProjectDescriptor#isApplicable(Descriptor)
+         */
+        @Override
+        public boolean isApplicable(Class<? extends AbstractProject> jobType) {
+            return true;
+        }
+
+        /**
+         * Validated the Project(s) path
+         *
+         * @param value Project Json Path value
+         * @return FormValidation
+         */
+        public FormValidation doCheckProjectJsonPath(@QueryParameter String value) {
+            if (value.trim().isEmpty()) {
+                return FormValidation.error(com.uipath.uipathpackage.Messages.UiPathPack_DescriptorImpl_Error_MissingProjectJsonPath());
+            }
+
+            if (value.trim().toUpperCase().contains("${JENKINS_HOME}")) {
+                return FormValidation.error(com.uipath.uipathpackage.Messages.GenericErrors_MustUseSlavePaths());
+            }
+
+            return FormValidation.ok();
+        }
+
+        /**
+         * Provides the display name to the build step
+         *
+         * @return String display name
+         */
+        @Nonnull
+        @Override
+        public String getDisplayName() {
+            return com.uipath.uipathpackage.Messages.UiPathAnalyze_DescriptorImpl_DisplayName();
+        }
+
+        /**
+         * Returns the list of Strings to be filled in choice
+         * If item is null or doesn't have configure permission it will return empty list
+         *
+         * @param item Basic configuration unit in Hudson
+         * @return ListBoxModel list of String
+         */
+        public ListBoxModel doFillTraceLevelItems(@AncestorInPath Item item) {
+            if (item == null || !item.hasPermission(Item.CONFIGURE)) {
+                return new ListBoxModel();
+            }
+
+            ListBoxModel result= new ListBoxModel();
+            for (TraceLevel v: TraceLevel.values()) {
+                result.add(v.toString(), v.toString());
+            }
+
+            return result;
+        }
+
+        /**
+         * Provides the list of descriptors to the choice in hetero-radio
+         *
+         * @return list of the authentication descriptors
+         */
+        public List<Descriptor> getAuthenticationDescriptors() {
+            Jenkins jenkins = Jenkins.getInstanceOrNull();
+            if (jenkins == null) {
+                return new ArrayList<>();
+            }
+
+            List<Descriptor> list = new ArrayList<>();
+            Descriptor userPassDescriptor = jenkins.getDescriptor(UserPassAuthenticationEntry.class);
+            if (userPassDescriptor != null) {
+                list.add(userPassDescriptor);
+            }
+            Descriptor tokenDescriptor = jenkins.getDescriptor(TokenAuthenticationEntry.class);
+            if (tokenDescriptor != null) {
+                list.add(tokenDescriptor);
+            }
+            Descriptor externalAppDescriptor = jenkins.getDescriptor(ExternalAppAuthenticationEntry.class);
+            if (externalAppDescriptor != null) {
+                list.add(externalAppDescriptor);
+            }
+            return ImmutableList.copyOf(list);
+        }
+    }
+}
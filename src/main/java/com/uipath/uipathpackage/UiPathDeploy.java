@@ -5,13 +5,17 @@ import com.uipath.uipathpackage.entries.SelectEntry;
 import com.uipath.uipathpackage.entries.authentication.ExternalAppAuthenticationEntry;
 import com.uipath.uipathpackage.entries.authentication.TokenAuthenticationEntry;
 import com.uipath.uipathpackage.entries.authentication.UserPassAuthenticationEntry;
+import com.uipath.uipathpackage.models.CommonOptions;
 import com.uipath.uipathpackage.models.DeployOptions;
 import com.uipath.uipathpackage.util.*;
 import hudson.*;
 import hudson.model.*;
 import hudson.tasks.*;
+import hudson.util.DaemonThreadFactory;
 import hudson.util.FormValidation;
 import hudson.util.ListBoxModel;
+import hudson.util.NamingThreadFactory;
+import hudson.util.StreamTaskListener;
 import jenkins.model.Jenkins;
 import jenkins.tasks.SimpleBuildStep;
 import org.jenkinsci.Symbol;
@@ -20,12 +24,17 @@ import org.kohsuke.stapler.DataBoundConstructor;
 import org.kohsuke.stapler.DataBoundSetter;
 import org.kohsuke.stapler.QueryParameter;
 
+import javax.annotation.CheckForNull;
 import javax.annotation.Nonnull;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.PrintStream;
 import java.net.URISyntaxException;
 import java.security.InvalidParameterException;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
 
 import static hudson.slaves.WorkspaceList.tempDir;
 
@@ -34,6 +43,13 @@ import static hudson.slaves.WorkspaceList.tempDir;
  * instance provided by the user.
  */
 public class UiPathDeploy extends Recorder implements SimpleBuildStep {
+    private static final int DEFAULT_MAX_PARALLEL_DEPLOYS = 4;
+    private static final int DEFAULT_MAX_PARALLEL_UPLOADS = 2;
+    private static final int DEFAULT_UPLOAD_RETRIES = 2;
+    private static final long RETRY_BACKOFF_MILLIS = TimeUnit.SECONDS.toMillis(10);
+    private static final long HEARTBEAT_SECONDS = 30;
+    // failures a retry cannot fix, e.g. an existing package version or missing permissions
+    private static final Pattern NON_TRANSIENT_ERRORS = Pattern.compile("Conflict|already exists|Unauthorized|Forbidden|not found", Pattern.CASE_INSENSITIVE);
     private final Utility util = new Utility();
     private final String packagePath;
     private final String orchestratorAddress;
@@ -47,6 +63,12 @@ public class UiPathDeploy extends Recorder implements SimpleBuildStep {
     private Boolean ignoreLibraryDeployConflict;
     private String processName;
     private String processNames;
+    private String deployTargets;
+    private int maxParallelDeploys;
+    private boolean skipDeployed;
+    private boolean deployPackagesSeparately;
+    private int maxParallelUploads;
+    private int uploadRetries;
 
     /**
      * Data bound constructor which is responsible for setting/saving of the values
@@ -82,6 +104,10 @@ public class UiPathDeploy extends Recorder implements SimpleBuildStep {
         this.entryPointPaths = entryPointPaths;
         this.createProcess = createProcess;
         this.ignoreLibraryDeployConflict = null;
+        this.deployTargets = null;
+        this.maxParallelDeploys = DEFAULT_MAX_PARALLEL_DEPLOYS;
+        this.maxParallelUploads = DEFAULT_MAX_PARALLEL_UPLOADS;
+        this.uploadRetries = DEFAULT_UPLOAD_RETRIES;
     }
 
     /**
@@ -212,80 +238,465 @@ public class UiPathDeploy extends Recorder implements SimpleBuildStep {
             util.validateRuntime(launcher, envVars);
 
             CliDetails cliDetails = util.getCliDetails(run, listener, envVars, launcher);
-            String buildTag = envVars.get(EnvironmentVariablesConsts.BUILD_TAG);
 
             FilePath expandedPackagePath = packagePath.contains("${WORKSPACE}") ?
                     new FilePath(launcher.getChannel(), envVars.expand(packagePath)) :
                     workspace.child(envVars.expand(packagePath));
 
-            DeployOptions deployOptions = new DeployOptions();
-            if (cliDetails.getActualVersion().supportsNewTelemetry()) {
-                deployOptions.populateAdditionalTelemetryData();
-                deployOptions.setPipelineCorrelationId(buildTag);
-                deployOptions.setCliGetFlow(cliDetails.getGetFlow());
-            }
+            // the credentials are resolved once and copied to every target
+            CommonOptions resolvedCredentials = new CommonOptions();
+            util.setCredentialsFromCredentialsEntry(credentials, resolvedCredentials, run);
 
-            if (ignoreLibraryDeployConflict != null && ignoreLibraryDeployConflict) {
-                deployOptions.setIgnoreLibraryDeployConflict(ignoreLibraryDeployConflict);
+            List<DeployLedger.LocalPackage> packages = null;
+            String settingsFingerprint = null;
+            if (skipDeployed) {
+                packages = DeployLedger.listPackages(expandedPackagePath);
+                settingsFingerprint = getSettingsFingerprint(envVars);
+                logger.println("Packages to deploy: " + packages);
             }
 
-            if (processName != null && !processName.isEmpty()) {
-                deployOptions.setProcessName(processName);
+            DeployContext context = new DeployContext(run, workspace, envVars, launcher, logger, cliDetails, resolvedCredentials, expandedPackagePath, packages, settingsFingerprint);
+            List<DeployTarget> targets = getTargets(envVars);
+            if (targets.size() == 1) {
+                deployTarget(context, targets.get(0), tempRemoteDir, listener);
+            } else {
+                deployToTargets(context, targets, tempRemoteDir, listener);
+            }
+        } catch (URISyntaxException e) {
+            e.printStackTrace(logger);
+            throw new AbortException(e.getMessage());
+        } finally {
+            try {
+                Objects.requireNonNull(tempRemoteDir).deleteRecursive();
+            } catch(Exception e) {
+                logger.println(com.uipath.uipathpackage.Messages.GenericErrors_FailedToDeleteTempDeploy() + e.getMessage());
+                e.printStackTrace(logger);
             }
+        }
+    }
+
+    /**
+     * Builds the deploy options of a target
+     */
+    private DeployOptions buildDeployOptions(@Nonnull DeployContext context, @Nonnull DeployTarget target, @Nonnull FilePath packagesPath) {
+        EnvVars envVars = context.envVars;
+        String buildTag = envVars.get(EnvironmentVariablesConsts.BUILD_TAG);
+
+        DeployOptions deployOptions = new DeployOptions();
+        if (context.cliDetails.getActualVersion().supportsNewTelemetry()) {
+            deployOptions.populateAdditionalTelemetryData();
+            deployOptions.setPipelineCorrelationId(buildTag);
+            deployOptions.setCliGetFlow(context.cliDetails.getGetFlow());
+        }
+
+        if (ignoreLibraryDeployConflict != null && ignoreLibraryDeployConflict) {
+            deployOptions.setIgnoreLibraryDeployConflict(ignoreLibraryDeployConflict);
+        }
+
+        if (processName != null && !processName.isEmpty()) {
+            deployOptions.setProcessName(processName);
+        }
+
+        if (processNames != null && !processNames.isEmpty()) {
+            FilePath expandedprocessNamesPath = processNames.contains("${WORKSPACE}") ?
+                    new FilePath(context.launcher.getChannel(), envVars.expand(processNames)) :
+                    context.workspace.child(envVars.expand(processNames));
+            deployOptions.setProcessNames(expandedprocessNamesPath.getRemote());
+        }
 
-            if (processNames != null && !processNames.isEmpty()) {
-                FilePath expandedprocessNamesPath = processNames.contains("${WORKSPACE}") ?
-                        new FilePath(launcher.getChannel(), envVars.expand(processNames)) :
-                        workspace.child(envVars.expand(processNames));
-                deployOptions.setProcessNames(expandedprocessNamesPath.getRemote());
+        deployOptions.setPackagesPath(packagesPath.getRemote());
+        deployOptions.setOrchestratorUrl(orchestratorAddress);
+        deployOptions.setOrganizationUnit(target.folder);
+        deployOptions.setOrchestratorTenant(target.tenant);
+
+        Utility.copyCredentials(context.resolvedCredentials, deployOptions);
+
+        String language = Locale.getDefault().getLanguage();
+        String country = Locale.getDefault().getCountry();
+        String localization = country.isEmpty() ? language : language + "-" + country;
+        deployOptions.setLanguage(localization);
+
+        deployOptions.setTraceLevel(traceLevel);
+
+        if (this.environments != null && !this.environments.isEmpty()) {
+            String[] deploymentEnvironments = envVars.expand(this.environments).split(",");
+            deployOptions.setEnvironments(Arrays.asList(deploymentEnvironments));
+        }
+        else {
+            deployOptions.setEnvironments(new ArrayList<>());
+        }
+
+        if (this.entryPointPaths != null && !this.entryPointPaths.isEmpty()) {
+            String[] entryPoints = envVars.expand(this.entryPointPaths).split(",");
+            deployOptions.setEntryPointPaths(Arrays.asList(entryPoints));
+        }
+        else {
+            deployOptions.setEntryPointPaths(new ArrayList<>());
+        }
+        deployOptions.setCreateProcess(createProcess);
+
+        return deployOptions;
+    }
+
+    /**
+     * Deploys the packages to a target. When skipDeployed is set, the packages the folder already has
+     * with the same version, content and settings are left out of the upload. When none is left, the packages are
+     * deployed again, as the CLI has no deploy updating the processes alone.
+     */
+    private void deployTarget(@Nonnull DeployContext context, @Nonnull DeployTarget target, @Nonnull FilePath targetTempDir, @Nonnull TaskListener listener) throws IOException, InterruptedException, URISyntaxException {
+        PrintStream logger = listener.getLogger();
+        FilePath packagesPath = context.expandedPackagePath;
+        List<DeployLedger.LocalPackage> missingPackages = new ArrayList<>();
+        if (context.packages != null && !context.packages.isEmpty()) {
+            for (DeployLedger.LocalPackage localPackage : context.packages) {
+                if (DeployLedger.isDeployed(getLedgerKey(target, localPackage), localPackage, Objects.requireNonNull(context.settingsFingerprint))) {
+                    logger.println(localPackage + " is already deployed to " + target + ", skipped");
+                } else {
+                    missingPackages.add(localPackage);
+                }
             }
+            if (missingPackages.isEmpty()) {
+                logger.println("All the packages are already deployed to " + target + ", deploying them again to update the processes");
+                missingPackages.addAll(context.packages);
+            } else if (missingPackages.size() < context.packages.size()) {
+                // the CLI deploys every package of a folder, so the missing ones are staged in a folder of their own
+                packagesPath = targetTempDir.child("packages");
+                packagesPath.mkdirs();
+                FilePath packagesDir = context.expandedPackagePath.isDirectory() ? context.expandedPackagePath : context.expandedPackagePath.getParent();
+                for (DeployLedger.LocalPackage localPackage : missingPackages) {
+                    Objects.requireNonNull(packagesDir).child(localPackage.getFileName()).copyTo(packagesPath.child(localPackage.getFileName()));
+                }
+            }
+        }
 
-            deployOptions.setPackagesPath(expandedPackagePath.getRemote());
-            deployOptions.setOrchestratorUrl(orchestratorAddress);
-            deployOptions.setOrganizationUnit(envVars.expand(folderName.trim()));
+        if (deployPackagesSeparately) {
+            Map<String, DeployLedger.LocalPackage> ledgerPackages = new HashMap<>();
+            for (DeployLedger.LocalPackage missingPackage : missingPackages) {
+                ledgerPackages.put(missingPackage.getFileName(), missingPackage);
+            }
+            List<FilePath> packageFiles = packagesPath.isDirectory() ? Arrays.asList(packagesPath.list("*.nupkg")) : Collections.singletonList(packagesPath);
+            deployPackages(context, target, packageFiles, ledgerPackages, targetTempDir, listener);
+            return;
+        }
 
-            ResourceBundle rb = ResourceBundle.getBundle("config");
-            String orchestratorTenantFormatted = envVars.expand(orchestratorTenant.trim()).isEmpty()
-                    ? util.getConfigValue(rb, "UiPath.DefaultTenant") : envVars.expand(orchestratorTenant.trim());
-            deployOptions.setOrchestratorTenant(orchestratorTenantFormatted);
+        DeployOptions deployOptions = buildDeployOptions(context, target, packagesPath);
+        util.execute("DeployOptions", deployOptions, targetTempDir, listener, context.envVars, context.launcher, true);
 
-            util.setCredentialsFromCredentialsEntry(credentials, deployOptions, run);
+        for (DeployLedger.LocalPackage deployedPackage : missingPackages) {
+            DeployLedger.markDeployed(getLedgerKey(target, deployedPackage), deployedPackage, Objects.requireNonNull(context.settingsFingerprint));
+        }
+    }
 
-            String language = Locale.getDefault().getLanguage();
-            String country = Locale.getDefault().getCountry();
-            String localization = country.isEmpty() ? language : language + "-" + country;
-            deployOptions.setLanguage(localization);
+    /**
+     * Deploys each package in a CLI run of its own, up to maxParallelUploads at once, so a transient failure
+     * only retries its own package and the packages already deployed are not uploaded again
+     */
+    private void deployPackages(@Nonnull DeployContext context, @Nonnull DeployTarget target, @Nonnull List<FilePath> packageFiles, @Nonnull Map<String, DeployLedger.LocalPackage> ledgerPackages, @Nonnull FilePath targetTempDir, @Nonnull TaskListener listener) throws IOException, InterruptedException {
+        int parallelism = Math.max(1, Math.min(getMaxParallelUploads(), packageFiles.size()));
+        context.liveLogger.println("Deploying " + packageFiles.size() + " packages to " + target + ", " + parallelism + " at a time");
+
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism, new NamingThreadFactory(new DaemonThreadFactory(), "UiPath deploy packages"));
+        ScheduledExecutorService heartbeat = Executors.newSingleThreadScheduledExecutor(new NamingThreadFactory(new DaemonThreadFactory(), "UiPath deploy heartbeat"));
+        AtomicInteger completed = new AtomicInteger();
+        List<Future<Boolean>> futures = new ArrayList<>();
+        int failed = 0;
+        try {
+            for (int i = 0; i < packageFiles.size(); i++) {
+                FilePath packageFile = packageFiles.get(i);
+                FilePath packageTempDir = targetTempDir.child("package-" + i);
+                DeployLedger.LocalPackage ledgerPackage = ledgerPackages.get(packageFile.getName());
+                futures.add(executor.submit(() -> deployPackage(context, target, packageFile, ledgerPackage, packageTempDir, listener.getLogger(), heartbeat, completed, packageFiles.size())));
+            }
+            for (Future<Boolean> future : futures) {
+                if (!ParallelTasks.await(future)) {
+                    failed++;
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+            heartbeat.shutdownNow();
+        }
 
-            deployOptions.setTraceLevel(traceLevel);
+        if (failed > 0) {
+            throw new AbortException(failed + " of " + packageFiles.size() + " packages were not deployed to " + target);
+        }
+    }
 
-            if (this.environments != null && !this.environments.isEmpty()) {
-                String[] deploymentEnvironments = envVars.expand(this.environments).split(",");
-                deployOptions.setEnvironments(Arrays.asList(deploymentEnvironments));
+    private boolean deployPackage(@Nonnull DeployContext context, @Nonnull DeployTarget target, @Nonnull FilePath packageFile, @CheckForNull DeployLedger.LocalPackage ledgerPackage, @Nonnull FilePath packageTempDir,
+                                  @Nonnull PrintStream logger, @Nonnull ScheduledExecutorService heartbeat, @Nonnull AtomicInteger completed, int total) throws IOException, InterruptedException {
+        String name = packageFile.getName();
+        double sizeMegabytes = packageFile.length() / (1024d * 1024d);
+        int attempts = getUploadRetries() + 1;
+        for (int attempt = 1; ; attempt++) {
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            StreamTaskListener packageListener = new StreamTaskListener(output, context.run.getCharset());
+            long startTime = System.nanoTime();
+            // the CLI prints nothing while uploading, a heartbeat shows the deploy is still running
+            ScheduledFuture<?> progress = heartbeat.scheduleAtFixedRate(() -> printLive(context, String.format(Locale.ENGLISH, "%s (%.1f MB) to %s: still deploying after %d s",
+                    name, sizeMegabytes, target, TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - startTime))), HEARTBEAT_SECONDS, HEARTBEAT_SECONDS, TimeUnit.SECONDS);
+            boolean succeeded;
+            try {
+                succeeded = ParallelTasks.run(() -> {
+                    packageTempDir.mkdirs();
+                    util.execute("DeployOptions", buildDeployOptions(context, target, packageFile), packageTempDir, packageListener, context.envVars, context.launcher, true);
+                }, packageListener) == null;
+            } finally {
+                progress.cancel(false);
             }
-            else {
-                deployOptions.setEnvironments(new ArrayList<>());
+            double elapsedSeconds = (System.nanoTime() - startTime) / 1e9;
+
+            packageListener.getLogger().flush();
+            synchronized (logger) {
+                logger.println("----- " + name + " -> " + target + (attempt > 1 ? " (attempt " + attempt + ")" : "") + " -----");
+                logger.write(output.toByteArray());
             }
 
-            if (this.entryPointPaths != null && !this.entryPointPaths.isEmpty()) {
-                String[] entryPoints = envVars.expand(this.entryPointPaths).split(",");
-                deployOptions.setEntryPointPaths(Arrays.asList(entryPoints));
+            if (succeeded) {
+                if (ledgerPackage != null) {
+                    DeployLedger.markDeployed(getLedgerKey(target, ledgerPackage), ledgerPackage, Objects.requireNonNull(context.settingsFingerprint));
+                }
+                printLive(context, String.format(Locale.ENGLISH, "[%d/%d] %s deployed to %s: %.1f MB in %.1f s, %.2f MB/s",
+                        completed.incrementAndGet(), total, name, target, sizeMegabytes, elapsedSeconds, sizeMegabytes / Math.max(elapsedSeconds, 0.001)));
+                return true;
             }
-            else {
-                deployOptions.setEntryPointPaths(new ArrayList<>());
+            if (attempt >= attempts || NON_TRANSIENT_ERRORS.matcher(output.toString(context.run.getCharset().name())).find()) {
+                printLive(context, String.format(Locale.ENGLISH, "[%d/%d] %s failed to deploy to %s after %d attempts",
+                        completed.incrementAndGet(), total, name, target, attempt));
+                return false;
             }
-            deployOptions.setCreateProcess(createProcess);
 
-            util.execute("DeployOptions", deployOptions, tempRemoteDir, listener, envVars, launcher, true);
-        } catch (URISyntaxException e) {
-            e.printStackTrace(logger);
-            throw new AbortException(e.getMessage());
+            long backoffMillis = RETRY_BACKOFF_MILLIS << (attempt - 1);
+            printLive(context, name + " failed to deploy to " + target + ", retrying in " + TimeUnit.MILLISECONDS.toSeconds(backoffMillis) + " s");
+            Thread.sleep(backoffMillis);
+        }
+    }
+
+    private static void printLive(@Nonnull DeployContext context, @Nonnull String message) {
+        synchronized (context.liveLogger) {
+            context.liveLogger.println(message);
+        }
+    }
+
+    private String getLedgerKey(@Nonnull DeployTarget target, @Nonnull DeployLedger.LocalPackage localPackage) throws IOException {
+        return DeployLedger.getKey(orchestratorAddress, target.tenant, target.folder, localPackage);
+    }
+
+    /**
+     * Fingerprint of the settings creating or updating the processes, a package deployed with other settings is deployed again
+     */
+    private String getSettingsFingerprint(@Nonnull EnvVars envVars) throws IOException {
+        return Hashes.combine(
+                environments != null ? envVars.expand(environments) : "",
+                entryPointPaths != null ? envVars.expand(entryPointPaths) : "",
+                processName != null ? processName : "",
+                processNames != null ? envVars.expand(processNames) : "",
+                String.valueOf(createProcess),
+                String.valueOf(ignoreLibraryDeployConflict != null && ignoreLibraryDeployConflict));
+    }
+
+    /**
+     * Resolves the tenant and folder targets, the step folder and tenant followed by the additional targets
+     */
+    private List<DeployTarget> getTargets(@Nonnull EnvVars envVars) {
+        ResourceBundle rb = ResourceBundle.getBundle("config");
+        String defaultTenant = envVars.expand(orchestratorTenant.trim()).isEmpty()
+                ? util.getConfigValue(rb, "UiPath.DefaultTenant") : envVars.expand(orchestratorTenant.trim());
+
+        Set<DeployTarget> targets = new LinkedHashSet<>();
+        targets.add(new DeployTarget(defaultTenant, envVars.expand(folderName.trim())));
+        if (deployTargets != null) {
+            for (String line : envVars.expand(deployTargets).split("[\\r\\n;]+")) {
+                if (line.trim().isEmpty()) {
+                    continue;
+                }
+                int separator = line.indexOf(':');
+                String tenant = separator > 0 ? line.substring(0, separator).trim() : defaultTenant;
+                String folder = (separator >= 0 ? line.substring(separator + 1) : line).trim();
+                if (!folder.isEmpty()) {
+                    targets.add(new DeployTarget(tenant.isEmpty() ? defaultTenant : tenant, folder));
+                }
+            }
+        }
+        return new ArrayList<>(targets);
+    }
+
+    /**
+     * Deploys to every target, up to maxParallelDeploys CLI processes at once.
+     * The first target of each tenant runs first, so the packages are uploaded once to the tenant feed
+     * before the remaining folders of the tenant are deployed in parallel.
+     * The output of each target is buffered and printed as one block when the target is done.
+     */
+    private void deployToTargets(@Nonnull DeployContext context, @Nonnull List<DeployTarget> targets, @Nonnull FilePath tempRemoteDir, @Nonnull TaskListener listener) throws IOException, InterruptedException {
+        PrintStream logger = listener.getLogger();
+        Map<String, List<DeployTarget>> targetsByTenant = new LinkedHashMap<>();
+        for (DeployTarget target : targets) {
+            targetsByTenant.computeIfAbsent(target.tenant, k -> new ArrayList<>()).add(target);
+        }
+
+        List<DeployTarget> firstTargets = new ArrayList<>();
+        List<DeployTarget> remainingTargets = new ArrayList<>();
+        for (List<DeployTarget> tenantTargets : targetsByTenant.values()) {
+            firstTargets.add(tenantTargets.get(0));
+            remainingTargets.addAll(tenantTargets.subList(1, tenantTargets.size()));
+        }
+
+        int parallelism = Math.min(getMaxParallelDeploys(), targets.size());
+        logger.println("Deploying to " + targets.size() + " folders of " + targetsByTenant.size() + " tenants, " + parallelism + " at a time");
+
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism, new NamingThreadFactory(new DaemonThreadFactory(), "UiPath deploy"));
+        List<DeployResult> results = new ArrayList<>();
+        try {
+            results.addAll(runTargets(context, executor, firstTargets, Collections.emptySet(), targets, tempRemoteDir, logger));
+
+            Set<String> failedTenants = new HashSet<>();
+            for (DeployResult result : results) {
+                if (result.status == DeployStatus.FAILED) {
+                    failedTenants.add(result.target.tenant);
+                }
+            }
+            results.addAll(runTargets(context, executor, remainingTargets, failedTenants, targets, tempRemoteDir, logger));
         } finally {
-            try {
-                Objects.requireNonNull(tempRemoteDir).deleteRecursive();
-            } catch(Exception e) {
-                logger.println(com.uipath.uipathpackage.Messages.GenericErrors_FailedToDeleteTempDeploy() + e.getMessage());
-                e.printStackTrace(logger);
+            executor.shutdownNow();
+        }
+
+        printSummary(results, logger);
+    }
+
+    private List<DeployResult> runTargets(@Nonnull DeployContext context, @Nonnull ExecutorService executor, @Nonnull List<DeployTarget> batch, @Nonnull Set<String> failedTenants, @Nonnull List<DeployTarget> targets, @Nonnull FilePath tempRemoteDir, @Nonnull PrintStream logger) throws IOException, InterruptedException {
+        List<Future<DeployResult>> futures = new ArrayList<>();
+        for (DeployTarget target : batch) {
+            if (failedTenants.contains(target.tenant)) {
+                futures.add(CompletableFuture.completedFuture(new DeployResult(target, DeployStatus.SKIPPED, 0)));
+                continue;
+            }
+
+            FilePath targetTempDir = tempRemoteDir.child("target-" + targets.indexOf(target));
+            futures.add(executor.submit(() -> {
+                ByteArrayOutputStream output = new ByteArrayOutputStream();
+                StreamTaskListener targetListener = new StreamTaskListener(output, context.run.getCharset());
+                long startTime = System.nanoTime();
+                String error = ParallelTasks.run(() -> {
+                    targetTempDir.mkdirs();
+                    deployTarget(context, target, targetTempDir, targetListener);
+                }, targetListener);
+                DeployStatus status = error != null ? DeployStatus.FAILED : DeployStatus.OK;
+                long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+
+                targetListener.getLogger().flush();
+                synchronized (logger) {
+                    logger.println("----- " + target + " -----");
+                    logger.write(output.toByteArray());
+                }
+                return new DeployResult(target, status, elapsedMillis);
+            }));
+        }
+
+        List<DeployResult> results = new ArrayList<>();
+        for (Future<DeployResult> future : futures) {
+            results.add(ParallelTasks.await(future));
+        }
+        return results;
+    }
+
+    private static void printSummary(@Nonnull List<DeployResult> results, @Nonnull PrintStream logger) throws AbortException {
+        int failed = 0;
+        logger.println("Deploy summary:");
+        for (DeployResult result : results) {
+            if (result.status == DeployStatus.FAILED || result.status == DeployStatus.SKIPPED) {
+                failed++;
+            }
+            logger.println(String.format(Locale.ENGLISH, "  %-10s %8.1f s  %s", result.status.label, result.elapsedMillis / 1000d, result.target));
+        }
+        logger.println((results.size() - failed) + " of " + results.size() + " folders deployed");
+
+        if (failed > 0) {
+            throw new AbortException(failed + " of " + results.size() + " folders were not deployed");
+        }
+    }
+
+    private static final class DeployTarget {
+        private final String tenant;
+        private final String folder;
+
+        private DeployTarget(@Nonnull String tenant, @Nonnull String folder) {
+            this.tenant = tenant;
+            this.folder = folder;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof DeployTarget)) {
+                return false;
             }
+            DeployTarget that = (DeployTarget) o;
+            return tenant.equals(that.tenant) && folder.equals(that.folder);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(tenant, folder);
+        }
+
+        @Override
+        public String toString() {
+            return tenant + " / " + folder;
+        }
+    }
+
+    private enum DeployStatus {
+        OK("OK"),
+        FAILED("FAILED"),
+        SKIPPED("SKIPPED");
+
+        private final String label;
+
+        DeployStatus(@Nonnull String label) {
+            this.label = label;
+        }
+    }
+
+    private static final class DeployResult {
+        private final DeployTarget target;
+        private final DeployStatus status;
+        private final long elapsedMillis;
+
+        private DeployResult(@Nonnull DeployTarget target, @Nonnull DeployStatus status, long elapsedMillis) {
+            this.target = target;
+            this.status = status;
+            this.elapsedMillis = elapsedMillis;
+        }
+    }
+
+    /**
+     * State shared by the deploys of the targets
+     */
+    private static final class DeployContext {
+        private final Run<?, ?> run;
+        private final FilePath workspace;
+        private final EnvVars envVars;
+        private final Launcher launcher;
+        private final PrintStream liveLogger;
+        private final CliDetails cliDetails;
+        private final CommonOptions resolvedCredentials;
+        private final FilePath expandedPackagePath;
+        private final List<DeployLedger.LocalPackage> packages;
+        private final String settingsFingerprint;
+
+        private DeployContext(@Nonnull Run<?, ?> run, @Nonnull FilePath workspace, @Nonnull EnvVars envVars, @Nonnull Launcher launcher, @Nonnull PrintStream liveLogger, @Nonnull CliDetails cliDetails,
+                              @Nonnull CommonOptions resolvedCredentials, @Nonnull FilePath expandedPackagePath, @CheckForNull List<DeployLedger.LocalPackage> packages, @CheckForNull String settingsFingerprint) {
+            this.run = run;
+            this.workspace = workspace;
+            this.envVars = envVars;
+            this.launcher = launcher;
+            this.liveLogger = liveLogger;
+            this.cliDetails = cliDetails;
+            this.resolvedCredentials = resolvedCredentials;
+            this.expandedPackagePath = expandedPackagePath;
+            this.packages = packages;
+            this.settingsFingerprint = settingsFingerprint;
         }
     }
 
@@ -306,6 +717,90 @@ public class UiPathDeploy extends Recorder implements SimpleBuildStep {
         }
     }
 
+    @DataBoundSetter
+    public void setDeployTargets(String deployTargets) {
+        this.deployTargets = deployTargets;
+    }
+
+    /**
+     * Additional tenant and folder targets, one tenant:folder per line, the step tenant is used when omitted
+     *
+     * @return String deployTargets
+     */
+    public String getDeployTargets() {
+        return deployTargets;
+    }
+
+    @DataBoundSetter
+    public void setMaxParallelDeploys(int maxParallelDeploys) {
+        this.maxParallelDeploys = maxParallelDeploys;
+    }
+
+    /**
+     * Maximum number of folders deployed at the same time
+     *
+     * @return int maxParallelDeploys
+     */
+    public int getMaxParallelDeploys() {
+        return maxParallelDeploys > 0 ? maxParallelDeploys : DEFAULT_MAX_PARALLEL_DEPLOYS;
+    }
+
+    @DataBoundSetter
+    public void setSkipDeployed(boolean skipDeployed) {
+        this.skipDeployed = skipDeployed;
+    }
+
+    /**
+     * Skip the packages already deployed by the controller to a folder with the same version, hash and settings
+     *
+     * @return boolean skipDeployed
+     */
+    public boolean isSkipDeployed() {
+        return skipDeployed;
+    }
+
+    @DataBoundSetter
+    public void setDeployPackagesSeparately(boolean deployPackagesSeparately) {
+        this.deployPackagesSeparately = deployPackagesSeparately;
+    }
+
+    /**
+     * Deploy each package in a CLI run of its own, with progress, concurrency and retries per package
+     *
+     * @return boolean deployPackagesSeparately
+     */
+    public boolean isDeployPackagesSeparately() {
+        return deployPackagesSeparately;
+    }
+
+    @DataBoundSetter
+    public void setMaxParallelUploads(int maxParallelUploads) {
+        this.maxParallelUploads = maxParallelUploads;
+    }
+
+    /**
+     * Maximum number of packages deployed at the same time to a folder, when the packages are deployed separately
+     *
+     * @return int maxParallelUploads
+     */
+    public int getMaxParallelUploads() {
+        return maxParallelUploads > 0 ? maxParallelUploads : DEFAULT_MAX_PARALLEL_UPLOADS;
+    }
+
+    @DataBoundSetter
+    public void setUploadRetries(int uploadRetries) {
+        this.uploadRetries = uploadRetries;
+    }
+
+    /**
+     * Number of retries of a package failing with a transient error, when the packages are deployed separately
+     *
+     * @return int uploadRetries
+     */
+    public int getUploadRetries() {
+        return Math.max(uploadRetries, 0);
+    }
+
     @DataBoundSetter
     public void setIgnoreLibraryDeployConflict(Boolean ignoreLibraryDeployConflict) {
         this.ignoreLibraryDeployConflict = ignoreLibraryDeployConflict;
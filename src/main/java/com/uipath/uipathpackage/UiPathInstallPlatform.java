@@ -22,7 +22,6 @@ import org.kohsuke.stapler.QueryParameter;
 
 import javax.annotation.Nonnull;
 import java.io.PrintStream;
-import java.util.Map;
 
 public class UiPathInstallPlatform extends Builder implements SimpleBuildStep {
 
@@ -67,48 +66,15 @@ public class UiPathInstallPlatform extends Builder implements SimpleBuildStep {
             EnvVars envVars = TaskScopedEnvVarsManager.addRequiredEnvironmentVariables(run, env, listener);
 
             cliConfiguration.updateSelectedCliVersionKey(run, cliVersion);
-            boolean isSelectedCliAlreadyCached = cliConfiguration.getCliPath(launcher, envVars, cliVersion).isPresent();
 
-            logger.println(isSelectedCliAlreadyCached ? "cli is already cached.." : "cli is not found in cache..");
-
-            if(this.forceInstall || !isSelectedCliAlreadyCached) {
-
-                if(forceInstall) {
-                    logger.println("force installing the cli , any previous cache for version "+cliVersion+" will be invalidate..");
-                }
-
-                FilePath cliRootCacheDirPath = cliConfiguration.getCliRootCachedDirectoryPath(launcher, envVars, cliVersion);
-
-                if(cliVersion.equals(cliConfiguration.getDefaultCliVersionKey())) {
-                    logger.print("(caching) extracting the pre-packaged cli...");
-                    util.extractCliApp(cliRootCacheDirPath, listener, envVars);
-
-                } else if(StringUtils.isNotBlank(cliNupkgPath)) {
-
-                    FilePath actualCliNupkgPath = cliNupkgPath.contains("${WORKSPACE}") ?
-                            new FilePath(launcher.getChannel(), envVars.expand(cliNupkgPath)) :
-                            workspace.child(envVars.expand(cliNupkgPath));
-
-                    if(!actualCliNupkgPath.exists()){
-                        logger.println("CliNupkgPath provided doesn't exists "+actualCliNupkgPath.getRemote());
-                        throw new AbortException(Messages.UiPathInstallPlatform_DescriptorImpl_Error_CliNupkgPath());
-                    }
-                    logger.print("(caching) extracting the provided cli-nuget...");
-                    actualCliNupkgPath.unzip(cliRootCacheDirPath);
-                } else {
-                    UiPathCliConfiguration.Configuration configuration = cliConfiguration.getConfiguration().get(cliVersion);
-                    FilePath downloadsRootPath = cliConfiguration.getCliRootDownloadsDirectoryPath(launcher, envVars, cliVersion);
-
-                    String fileName = configuration.getName().concat(".").concat(configuration.getVersion().getComplete()).concat(".nupkg");
-
-                    FilePath downloadCliPath = downloadsRootPath.child(fileName);
-                    util.downloadCli(configuration.getFeedUrl(), downloadCliPath, listener);
-
-                    logger.print("(caching) extracting the downloaded cli...");
-                    downloadCliPath.unzip(cliRootCacheDirPath);
-                }
-                logger.println(" done!!");
+            FilePath actualCliNupkgPath = null;
+            if (!cliVersion.equals(cliConfiguration.getDefaultCliVersionKey()) && StringUtils.isNotBlank(cliNupkgPath)) {
+                actualCliNupkgPath = cliNupkgPath.contains("${WORKSPACE}") ?
+                        new FilePath(launcher.getChannel(), envVars.expand(cliNupkgPath)) :
+                        workspace.child(envVars.expand(cliNupkgPath));
             }
+
+            util.installCli(cliVersion, actualCliNupkgPath, forceInstall, launcher, envVars, listener);
         } catch (Exception e) {
             if(traceLevel.equals(TraceLevel.Verbose) || traceLevel.equals(TraceLevel.Error)) {
                 e.printStackTrace(logger);
@@ -184,8 +150,8 @@ public class UiPathInstallPlatform extends Builder implements SimpleBuildStep {
 
             ListBoxModel result= new ListBoxModel();
 
-            for (Map.Entry<String, UiPathCliConfiguration.Configuration> v: cliConfiguration.getConfiguration().entrySet()) {
-                result.add(v.getValue().getDisplayName(), v.getKey());
+            for (UiPathCliConfiguration.Configuration v: cliConfiguration.getSortedConfigurations()) {
+                result.add(v.getDisplayName(), v.getConfigurationUniqueId());
             }
 
             return result;
@@ -1,6 +1,7 @@
 package com.uipath.uipathpackage;
 
 import com.google.common.collect.ImmutableList;
+import com.uipath.uipathpackage.configuration.UiPathCliConfiguration;
 import com.uipath.uipathpackage.entries.SelectEntry;
 import com.uipath.uipathpackage.entries.authentication.ExternalAppAuthenticationEntry;
 import com.uipath.uipathpackage.entries.authentication.TokenAuthenticationEntry;
@@ -9,27 +10,37 @@ import com.uipath.uipathpackage.entries.versioning.AutoVersionEntry;
 import com.uipath.uipathpackage.entries.versioning.CurrentVersionEntry;
 import com.uipath.uipathpackage.entries.versioning.ManualVersionEntry;
 import com.uipath.uipathpackage.models.AnalyzeOptions;
+import com.uipath.uipathpackage.models.CommonOptions;
 import com.uipath.uipathpackage.models.PackOptions;
+import com.uipath.uipathpackage.models.RunOptions;
 import com.uipath.uipathpackage.util.*;
 import hudson.*;
 import hudson.model.*;
 import hudson.tasks.BuildStepDescriptor;
 import hudson.tasks.Builder;
+import hudson.util.DaemonThreadFactory;
 import hudson.util.FormValidation;
 import hudson.util.ListBoxModel;
+import hudson.util.NamingThreadFactory;
+import hudson.util.StreamTaskListener;
 import jenkins.model.Jenkins;
 import jenkins.tasks.SimpleBuildStep;
+import org.apache.commons.lang.StringUtils;
 import org.jenkinsci.Symbol;
 import org.kohsuke.stapler.AncestorInPath;
 import org.kohsuke.stapler.DataBoundConstructor;
 import org.kohsuke.stapler.DataBoundSetter;
 import org.kohsuke.stapler.QueryParameter;
 
+import javax.annotation.CheckForNull;
 import javax.annotation.Nonnull;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.PrintStream;
 import java.net.URISyntaxException;
 import java.security.InvalidParameterException;
 import java.util.*;
+import java.util.concurrent.*;
 
 import static hudson.slaves.WorkspaceList.tempDir;
 
@@ -37,6 +48,7 @@ import static hudson.slaves.WorkspaceList.tempDir;
  * Performs the actual build.
  */
 public class UiPathPack extends Builder implements SimpleBuildStep {
+    private static final int DEFAULT_MAX_PARALLELISM = 4;
     private final Utility util = new Utility();
     private final SelectEntry version;
     private final String projectJsonPath;
@@ -57,6 +69,9 @@ public class UiPathPack extends Builder implements SimpleBuildStep {
     private SelectEntry credentials;
     private final TraceLevel traceLevel;
     private String governanceFilePath;
+    private String projectJsonGlob;
+    private int maxParallelism;
+    private boolean incrementalPack;
 
     /**
      * Data bound constructor responsible for setting the values param values to state
@@ -87,6 +102,9 @@ public class UiPathPack extends Builder implements SimpleBuildStep {
         this.credentials = null;
         this.runWorkflowAnalysis = false;
         this.governanceFilePath = null;
+        this.projectJsonGlob = null;
+        this.maxParallelism = DEFAULT_MAX_PARALLELISM;
+        this.incrementalPack = false;
     }
 
     /**
@@ -118,7 +136,6 @@ public class UiPathPack extends Builder implements SimpleBuildStep {
             util.validateRuntime(launcher, envVars);
 
             CliDetails cliDetails = util.getCliDetails(run, listener, envVars, launcher);
-            String buildTag = envVars.get(EnvironmentVariablesConsts.BUILD_TAG);
 
             FilePath expandedOutputPath = outputPath.contains("${WORKSPACE}") ?
                     new FilePath(launcher.getChannel(), envVars.expand(outputPath)) :
@@ -129,94 +146,316 @@ public class UiPathPack extends Builder implements SimpleBuildStep {
                     new FilePath(launcher.getChannel(), envVars.expand(projectJsonPath)) :
                     workspace.child(envVars.expand(projectJsonPath));
 
-            if (runWorkflowAnalysis) {
-                AnalyzeOptions analyzeOptions = new AnalyzeOptions();
-                if (governanceFilePath != null && !governanceFilePath.isEmpty()) {
-                    FilePath expandedGovernanceFilePath = governanceFilePath.contains("${WORKSPACE}") ?
-                            new FilePath(launcher.getChannel(), envVars.expand(governanceFilePath)) :
-                            workspace.child(envVars.expand(governanceFilePath));
-                    analyzeOptions.setGovernanceFilePath(expandedGovernanceFilePath.getRemote());
-                }
-                if (disableBuiltInNugetFeeds != null && disableBuiltInNugetFeeds) {
-                    analyzeOptions.setDisableBuiltInNugetFeeds(true);
-                }
-
-                if (cliDetails.getActualVersion().supportsNewTelemetry()) {
-                    analyzeOptions.populateAdditionalTelemetryData();
-                    analyzeOptions.setPipelineCorrelationId(buildTag);
-                    analyzeOptions.setCliGetFlow(cliDetails.getGetFlow());
-                }
-                analyzeOptions.setProjectPath(expandedProjectJsonPath.getRemote());
-
-                if (useOrchestrator) {
-                    analyzeOptions.setOrchestratorUrl(orchestratorAddress);
-                    analyzeOptions.setOrchestratorTenant(orchestratorTenant);
-
-                    util.setCredentialsFromCredentialsEntry(credentials, analyzeOptions, run);
-                }
-
-                util.execute("AnalyzeOptions", analyzeOptions, tempRemoteDir, listener, envVars, launcher, true);
+            // the credentials are resolved once and copied to every operation
+            CommonOptions resolvedCredentials = null;
+            if (useOrchestrator) {
+                resolvedCredentials = new CommonOptions();
+                util.setCredentialsFromCredentialsEntry(credentials, resolvedCredentials, run);
             }
 
-            PackOptions packOptions = new PackOptions();
-            if (cliDetails.getActualVersion().supportsNewTelemetry()) {
-                packOptions.populateAdditionalTelemetryData();
-                packOptions.setPipelineCorrelationId(buildTag);
-                packOptions.setCliGetFlow(cliDetails.getGetFlow());
+            // the governance file is validated once and all the analyses use the same cached copy
+            GovernanceCache.Policy governancePolicy = null;
+            if (runWorkflowAnalysis && governanceFilePath != null && !governanceFilePath.isEmpty()) {
+                governancePolicy = GovernanceCache.resolve(run, expandGovernanceFilePath(workspace, envVars, launcher), tempRemoteDir, launcher, envVars, listener);
             }
 
-            packOptions.setDestinationFolder(expandedOutputPath.getRemote());
-            packOptions.setProjectPath(expandedProjectJsonPath.getRemote());
-            packOptions.setOutputType(outputType);
-            if (splitOutput != null && splitOutput) {
-                packOptions.setSplitOutput(true);
+            if (StringUtils.isNotBlank(projectJsonGlob)) {
+                packProjects(expandedProjectJsonPath, expandedOutputPath, tempRemoteDir, envVars, launcher, listener, cliDetails, resolvedCredentials, governancePolicy, run);
+            } else {
+                packProject(expandedProjectJsonPath, expandedOutputPath, tempRemoteDir, envVars, launcher, listener, cliDetails, resolvedCredentials, governancePolicy);
+            }
+        } catch (URISyntaxException e) {
+            e.printStackTrace(listener.getLogger());
+            throw new AbortException(e.getMessage());
+        } finally {
+            try {
+                Objects.requireNonNull(tempRemoteDir).deleteRecursive();
+            } catch(Exception e) {
+                listener.getLogger().println(com.uipath.uipathpackage.Messages.GenericErrors_FailedToDeleteTempPack() + e.getMessage());
+                e.printStackTrace(listener.getLogger());
             }
+        }
+    }
 
+    /**
+     * Packs a project. In incremental mode an unchanged project reuses the packages of its last successful pack,
+     * otherwise the project is packed into a private folder and its packages are then moved to the output folder,
+     * so the packages of each project are known even when several projects share the output folder.
+     * The analysis of a project whose files and policy passed a previous analysis is skipped, e.g. when only the version changed.
+     */
+    private void packProject(@Nonnull FilePath expandedProjectJsonPath, @Nonnull FilePath expandedOutputPath, @Nonnull FilePath projectTempDir, @Nonnull EnvVars envVars, @Nonnull Launcher launcher, @Nonnull TaskListener listener, @Nonnull CliDetails cliDetails, @CheckForNull CommonOptions resolvedCredentials, @CheckForNull GovernanceCache.Policy governancePolicy) throws IOException, InterruptedException, URISyntaxException {
+        if (!incrementalPack) {
+            // analyze and pack share the CLI resolution and argument files preparation, the pack only runs if the analysis passed
+            List<RunOptions> operations = buildOperations(expandedProjectJsonPath, expandedOutputPath, envVars, cliDetails, resolvedCredentials, runWorkflowAnalysis, governancePolicy, null);
+            util.execute(operations, projectTempDir, listener, envVars, launcher, true);
+            return;
+        }
+
+        PrintStream logger = listener.getLogger();
+        long startTime = System.nanoTime();
+        String policyHash = governancePolicy != null ? governancePolicy.getSha256() : "";
+        String filesHash = PackManifest.computeInputsHash(expandedProjectJsonPath, expandedOutputPath, Collections.emptyList(), "");
+        String inputsHash = Hashes.combine(filesHash, policyHash, getOptionsFingerprint(envVars));
+        logger.println("Fingerprinted the project inputs in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime) + " ms");
+
+        PackManifest manifest = new PackManifest(expandedOutputPath, expandedProjectJsonPath);
+        List<String> reusablePackages = manifest.findReusablePackages(inputsHash);
+        if (reusablePackages != null) {
+            logger.println("The project is unchanged since its last successful pack, reusing " + String.join(", ", reusablePackages));
+            return;
+        }
+
+        String analysisKey = runWorkflowAnalysis ? GovernanceCache.getAnalysisKey(filesHash, policyHash, getAnalysisFingerprint(envVars)) : null;
+        boolean analyze = analysisKey != null && !GovernanceCache.isClean(analysisKey);
+        if (analysisKey != null && !analyze) {
+            logger.println("The project and its policy passed the workflow analysis of a previous build, skipping the analysis");
+        }
+
+        manifest.delete();
+        FilePath packOutputDir = projectTempDir.child("output");
+        packOutputDir.mkdirs();
+        FilePath analysisResultFile = projectTempDir.child("analysis.json");
+        analysisResultFile.delete();
+        List<RunOptions> operations = buildOperations(expandedProjectJsonPath, packOutputDir, envVars, cliDetails, resolvedCredentials, analyze, governancePolicy, analysisResultFile);
+        util.execute(operations, projectTempDir, listener, envVars, launcher, true);
+        // an analysis passing with warnings is not clean, skipping it later would hide the warnings
+        if (analyze && analysisResultFile.exists() && AnalysisReport.parse(expandedProjectJsonPath.getRemote(), analysisResultFile.readToString()).isEmpty()) {
+            GovernanceCache.markClean(analysisKey);
+        }
+
+        List<String> packageNames = new ArrayList<>();
+        for (FilePath packageFile : packOutputDir.list("**/*.nupkg")) {
+            FilePath target = expandedOutputPath.child(packageFile.getName());
+            packageFile.copyTo(target);
+            packageNames.add(packageFile.getName());
+        }
+        manifest.write(inputsHash, packageNames);
+    }
+
+    /**
+     * Fingerprint of the options affecting the produced packages, the build specific values (telemetry, credentials) are left out
+     */
+    private String getOptionsFingerprint(@Nonnull EnvVars envVars) throws IOException {
+        String versionFingerprint;
+        if (version instanceof ManualVersionEntry) {
+            versionFingerprint = "manual:" + envVars.expand(((ManualVersionEntry) version).getVersion().trim());
+        } else if (version instanceof AutoVersionEntry) {
+            versionFingerprint = "auto";
+        } else {
+            versionFingerprint = "current";
+        }
+
+        return String.join("|", Arrays.asList(
+                UiPathCliConfiguration.getInstance().getSelectedOrDefaultCliVersionKey(envVars),
+                versionFingerprint,
+                String.valueOf(outputType),
+                String.valueOf(splitOutput),
+                String.valueOf(disableBuiltInNugetFeeds),
+                String.valueOf(runWorkflowAnalysis),
+                String.valueOf(repositoryUrl),
+                String.valueOf(repositoryCommit),
+                String.valueOf(repositoryBranch),
+                String.valueOf(repositoryType),
+                String.valueOf(projectUrl),
+                String.valueOf(releaseNotes),
+                useOrchestrator ? orchestratorAddress + "/" + orchestratorTenant : ""));
+    }
+
+    /**
+     * Fingerprint of the options affecting the workflow analysis, the governance file is covered by its own hash
+     */
+    private String getAnalysisFingerprint(@Nonnull EnvVars envVars) throws IOException {
+        return String.join("|", Arrays.asList(
+                "analyze",
+                UiPathCliConfiguration.getInstance().getSelectedOrDefaultCliVersionKey(envVars),
+                String.valueOf(disableBuiltInNugetFeeds),
+                useOrchestrator ? orchestratorAddress + "/" + orchestratorTenant : ""));
+    }
+
+    private FilePath expandGovernanceFilePath(@Nonnull FilePath workspace, @Nonnull EnvVars envVars, @Nonnull Launcher launcher) {
+        return governanceFilePath.contains("${WORKSPACE}") ?
+                new FilePath(launcher.getChannel(), envVars.expand(governanceFilePath)) :
+                workspace.child(envVars.expand(governanceFilePath));
+    }
+
+    /**
+     * Builds the workflow analysis, if requested, and the pack operations of a project.
+     * The violations of the analysis are written to analysisResultFile when set.
+     */
+    private List<RunOptions> buildOperations(@Nonnull FilePath expandedProjectJsonPath, @Nonnull FilePath expandedOutputPath, @Nonnull EnvVars envVars, @Nonnull CliDetails cliDetails, @CheckForNull CommonOptions resolvedCredentials, boolean analyze, @CheckForNull GovernanceCache.Policy governancePolicy, @CheckForNull FilePath analysisResultFile) {
+        String buildTag = envVars.get(EnvironmentVariablesConsts.BUILD_TAG);
+        List<RunOptions> operations = new ArrayList<>();
+        if (analyze) {
+            AnalyzeOptions analyzeOptions = new AnalyzeOptions();
+            if (governancePolicy != null) {
+                analyzeOptions.setGovernanceFilePath(governancePolicy.getPath());
+            }
             if (disableBuiltInNugetFeeds != null && disableBuiltInNugetFeeds) {
-                packOptions.setDisableBuiltInNugetFeeds(true);
+                analyzeOptions.setDisableBuiltInNugetFeeds(true);
             }
 
-            packOptions.setRepositoryUrl(repositoryUrl);
-            packOptions.setRepositoryCommit(repositoryCommit);
-            packOptions.setRepositoryBranch(repositoryBranch);
-            packOptions.setRepositoryType(repositoryType);
-            packOptions.setProjectUrl(projectUrl);
-            packOptions.setReleaseNotes(releaseNotes);
-
-            if (version instanceof ManualVersionEntry) {
-                packOptions.setVersion(envVars.expand(((ManualVersionEntry) version).getVersion().trim()));
-            } else if (version instanceof AutoVersionEntry) {
-                packOptions.setAutoVersion(true);
+            if (cliDetails.getActualVersion().supportsNewTelemetry()) {
+                analyzeOptions.populateAdditionalTelemetryData();
+                analyzeOptions.setPipelineCorrelationId(buildTag);
+                analyzeOptions.setCliGetFlow(cliDetails.getGetFlow());
+            }
+            analyzeOptions.setProjectPath(expandedProjectJsonPath.getRemote());
+            if (analysisResultFile != null) {
+                analyzeOptions.setResultPath(analysisResultFile.getRemote());
             }
 
-            if (useOrchestrator) {
-                packOptions.setOrchestratorUrl(orchestratorAddress);
-                packOptions.setOrchestratorTenant(orchestratorTenant);
+            if (resolvedCredentials != null) {
+                analyzeOptions.setOrchestratorUrl(orchestratorAddress);
+                analyzeOptions.setOrchestratorTenant(orchestratorTenant);
 
-                util.setCredentialsFromCredentialsEntry(credentials, packOptions, run);
+                Utility.copyCredentials(resolvedCredentials, analyzeOptions);
             }
 
-            String language = Locale.getDefault().getLanguage();
-            String country = Locale.getDefault().getCountry();
-            String localization = country.isEmpty() ? language : language + "-" + country;
-            packOptions.setLanguage(localization);
+            operations.add(new RunOptions("AnalyzeOptions", analyzeOptions));
+        }
 
-            packOptions.setTraceLevel(traceLevel);
+        PackOptions packOptions = new PackOptions();
+        if (cliDetails.getActualVersion().supportsNewTelemetry()) {
+            packOptions.populateAdditionalTelemetryData();
+            packOptions.setPipelineCorrelationId(buildTag);
+            packOptions.setCliGetFlow(cliDetails.getGetFlow());
+        }
 
-            util.execute("PackOptions", packOptions, tempRemoteDir, listener, envVars, launcher, true);
-        } catch (URISyntaxException e) {
-            e.printStackTrace(listener.getLogger());
-            throw new AbortException(e.getMessage());
+        packOptions.setDestinationFolder(expandedOutputPath.getRemote());
+        packOptions.setProjectPath(expandedProjectJsonPath.getRemote());
+        packOptions.setOutputType(outputType);
+        if (splitOutput != null && splitOutput) {
+            packOptions.setSplitOutput(true);
+        }
+
+        if (disableBuiltInNugetFeeds != null && disableBuiltInNugetFeeds) {
+            packOptions.setDisableBuiltInNugetFeeds(true);
+        }
+
+        packOptions.setRepositoryUrl(repositoryUrl);
+        packOptions.setRepositoryCommit(repositoryCommit);
+        packOptions.setRepositoryBranch(repositoryBranch);
+        packOptions.setRepositoryType(repositoryType);
+        packOptions.setProjectUrl(projectUrl);
+        packOptions.setReleaseNotes(releaseNotes);
+
+        if (version instanceof ManualVersionEntry) {
+            packOptions.setVersion(envVars.expand(((ManualVersionEntry) version).getVersion().trim()));
+        } else if (version instanceof AutoVersionEntry) {
+            packOptions.setAutoVersion(true);
+        }
+
+        if (resolvedCredentials != null) {
+            packOptions.setOrchestratorUrl(orchestratorAddress);
+            packOptions.setOrchestratorTenant(orchestratorTenant);
+
+            Utility.copyCredentials(resolvedCredentials, packOptions);
+        }
+
+        String language = Locale.getDefault().getLanguage();
+        String country = Locale.getDefault().getCountry();
+        String localization = country.isEmpty() ? language : language + "-" + country;
+        packOptions.setLanguage(localization);
+
+        packOptions.setTraceLevel(traceLevel);
+
+        operations.add(new RunOptions("PackOptions", packOptions));
+        return operations;
+    }
+
+    /**
+     * Packs every project matching the glob under the project(s) path, running up to maxParallelism CLI processes at once.
+     * The output of each project is buffered and printed as one block when the project is done.
+     */
+    private void packProjects(@Nonnull FilePath baseDir, @Nonnull FilePath expandedOutputPath, @Nonnull FilePath tempRemoteDir, @Nonnull EnvVars envVars, @Nonnull Launcher launcher, @Nonnull TaskListener listener, @Nonnull CliDetails cliDetails, @CheckForNull CommonOptions resolvedCredentials, @CheckForNull GovernanceCache.Policy governancePolicy, @Nonnull Run<?, ?> run) throws IOException, InterruptedException {
+        PrintStream logger = listener.getLogger();
+        FilePath[] projects = baseDir.list(envVars.expand(projectJsonGlob));
+        if (projects.length == 0) {
+            throw new AbortException("No project matches " + projectJsonGlob + " under " + baseDir.getRemote());
+        }
+        Arrays.sort(projects, Comparator.comparing(FilePath::getRemote));
+
+        int parallelism = Math.min(getMaxParallelism(), projects.length);
+        logger.println("Packing " + projects.length + " projects, " + parallelism + " at a time");
+
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism, new NamingThreadFactory(new DaemonThreadFactory(), "UiPath pack"));
+        List<Future<PackResult>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < projects.length; i++) {
+                FilePath project = projects[i];
+                FilePath projectTempDir = tempRemoteDir.child("project-" + i);
+                futures.add(executor.submit(() -> {
+                    ByteArrayOutputStream output = new ByteArrayOutputStream();
+                    StreamTaskListener projectListener = new StreamTaskListener(output, run.getCharset());
+                    long startTime = System.nanoTime();
+                    String error = ParallelTasks.run(() -> {
+                        projectTempDir.mkdirs();
+                        packProject(project, expandedOutputPath, projectTempDir, envVars, launcher, projectListener, cliDetails, resolvedCredentials, governancePolicy);
+                    }, projectListener);
+                    long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+
+                    projectListener.getLogger().flush();
+                    synchronized (logger) {
+                        logger.println("----- " + project.getRemote() + " -----");
+                        logger.write(output.toByteArray());
+                    }
+                    return new PackResult(project.getRemote(), error, elapsedMillis);
+                }));
+            }
+
+            List<PackResult> results = new ArrayList<>();
+            for (Future<PackResult> future : futures) {
+                results.add(ParallelTasks.await(future));
+            }
+            printSummary(results, logger);
         } finally {
-            try {
-                Objects.requireNonNull(tempRemoteDir).deleteRecursive();
-            } catch(Exception e) {
-                listener.getLogger().println(com.uipath.uipathpackage.Messages.GenericErrors_FailedToDeleteTempPack() + e.getMessage());
-                e.printStackTrace(listener.getLogger());
+            executor.shutdownNow();
+        }
+    }
+
+    private static void printSummary(@Nonnull List<PackResult> results, @Nonnull PrintStream logger) throws AbortException {
+        int failed = 0;
+        logger.println("Pack summary:");
+        for (PackResult result : results) {
+            if (result.error != null) {
+                failed++;
             }
+            logger.println(String.format(Locale.ENGLISH, "  %-6s %8.1f s  %s", result.error == null ? "OK" : "FAILED", result.elapsedMillis / 1000d, result.project));
+        }
+        logger.println((results.size() - failed) + " of " + results.size() + " projects packed");
+
+        if (failed > 0) {
+            throw new AbortException(failed + " of " + results.size() + " projects failed to pack");
         }
     }
 
+    private static final class PackResult {
+        private final String project;
+        private final String error;
+        private final long elapsedMillis;
+
+        private PackResult(@Nonnull String project, @CheckForNull String error, long elapsedMillis) {
+            this.project = project;
+            this.error = error;
+            this.elapsedMillis = elapsedMillis;
+        }
+    }
+
+    @DataBoundSetter
+    public void setProjectJsonGlob(String projectJsonGlob) {
+        this.projectJsonGlob = projectJsonGlob;
+    }
+
+    @DataBoundSetter
+    public void setMaxParallelism(int maxParallelism) {
+        this.maxParallelism = maxParallelism;
+    }
+
+    @DataBoundSetter
+    public void setIncrementalPack(boolean incrementalPack) {
+        this.incrementalPack = incrementalPack;
+    }
+
     @DataBoundSetter
     public void setUseOrchestrator(boolean useOrchestrator) {
         this.useOrchestrator = useOrchestrator;
@@ -396,6 +635,33 @@ public class UiPathPack extends Builder implements SimpleBuildStep {
         return governanceFilePath;
     }
 
+    /**
+     * Provides the pattern of the project.json files packed in multi-project mode
+     *
+     * @return String projectJsonGlob
+     */
+    public String getProjectJsonGlob() {
+        return projectJsonGlob;
+    }
+
+    /**
+     * Provides the maximum number of projects packed at the same time
+     *
+     * @return int maxParallelism
+     */
+    public int getMaxParallelism() {
+        return maxParallelism > 0 ? maxParallelism : DEFAULT_MAX_PARALLELISM;
+    }
+
+    /**
+     * Provides the incremental pack flag, an unchanged project reuses the packages of its last successful pack
+     *
+     * @return boolean incrementalPack
+     */
+    public boolean getIncrementalPack() {
+        return incrementalPack;
+    }
+
     /**
      * Provides the repository url
      *
@@ -15,8 +15,11 @@ import hudson.model.*;
 import hudson.tasks.*;
 import hudson.tasks.junit.*;
 import hudson.tasks.test.TestResultProjectAction;
+import hudson.util.DaemonThreadFactory;
 import hudson.util.FormValidation;
 import hudson.util.ListBoxModel;
+import hudson.util.NamingThreadFactory;
+import hudson.util.StreamTaskListener;
 import jenkins.model.Jenkins;
 import jenkins.tasks.SimpleBuildStep;
 
@@ -27,11 +30,21 @@ import org.kohsuke.stapler.DataBoundConstructor;
 import org.kohsuke.stapler.DataBoundSetter;
 import org.kohsuke.stapler.QueryParameter;
 
+import javax.annotation.CheckForNull;
 import javax.annotation.Nonnull;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.PrintStream;
 import java.net.URISyntaxException;
 import java.security.InvalidParameterException;
 import java.util.*;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static hudson.slaves.WorkspaceList.tempDir;
 
@@ -58,8 +71,14 @@ public class UiPathTest extends Recorder implements SimpleBuildStep, JUnitTask {
     private final TraceLevel traceLevel;
     private boolean attachRobotLogs;
     private Boolean disableBuiltInNugetFeeds;
+    private int testShards;
+    private boolean runRecentFailuresFirst;
+    private int failFastThreshold;
+    private boolean testImpactSelection;
+    private int stdioMaxLength;
 
     private static int TimeoutDefault = 7200;
+    private static final String STDIO_ARTIFACTS = "UiPathTestOutputs";
 
     /**
      * Gets the timeout.
@@ -129,27 +148,13 @@ public class UiPathTest extends Recorder implements SimpleBuildStep, JUnitTask {
         tempRemoteDir.mkdirs();
 
         try {
-            ResourceBundle rb = ResourceBundle.getBundle("config");
             EnvVars envVars = TaskScopedEnvVarsManager.addRequiredEnvironmentVariables(run, env, listener);
             util.validateRuntime(launcher, envVars);
 
             CliDetails cliDetails = util.getCliDetails(run, listener, envVars, launcher);
-            String buildTag = envVars.get(EnvironmentVariablesConsts.BUILD_TAG);
 
-            TestOptions testOptions = new TestOptions();
-            if (disableBuiltInNugetFeeds != null && disableBuiltInNugetFeeds) {
-                testOptions.setDisableBuiltInNugetFeeds(true);
-            }
-
-            if (cliDetails.getActualVersion().supportsNewTelemetry()) {
-                testOptions.populateAdditionalTelemetryData();
-                testOptions.setPipelineCorrelationId(buildTag);
-                testOptions.setCliGetFlow(cliDetails.getGetFlow());
-            }
-
-            if (testTarget instanceof TestProjectEntry)
-            {
-                String environments = envVars.expand(((TestProjectEntry) testTarget).getEnvironments());
+            FilePath expandedProjectPath = null;
+            if (testTarget instanceof TestProjectEntry) {
                 String projectPath = ((TestProjectEntry) testTarget).getTestProjectPath();
                 if (!projectPath.endsWith("project.json")) {
                     if (!projectPath.endsWith("\\")) {
@@ -159,27 +164,11 @@ public class UiPathTest extends Recorder implements SimpleBuildStep, JUnitTask {
                     }
                 }
 
-                FilePath expandedProjectPath = projectPath.contains("${WORKSPACE}") ?
+                expandedProjectPath = projectPath.contains("${WORKSPACE}") ?
                         new FilePath(launcher.getChannel(), envVars.expand(projectPath)) :
                         workspace.child(envVars.expand(projectPath));
-
-                testOptions.setProjectPath(expandedProjectPath.getRemote());
-
-                if (environments != null && !environments.trim().isEmpty())
-                {
-                    testOptions.setEnvironment(environments);
-                }
-            }
-            else {
-                testOptions.setTestSet(((TestSetEntry)testTarget).getTestSet());
             }
 
-            String orchestratorTenantFormatted = envVars.expand(orchestratorTenant.trim()).isEmpty() ? util.getConfigValue(rb, "UiPath.DefaultTenant") : envVars.expand(orchestratorTenant.trim());
-            testOptions.setOrchestratorUrl(orchestratorAddress);
-            testOptions.setOrchestratorTenant(orchestratorTenantFormatted);
-            testOptions.setOrganizationUnit(envVars.expand(folderName.trim()));
-            testOptions.setTestReportType("junit");
-
             String resultsOutputPath = testResultsOutputPath != null && !testResultsOutputPath.trim().isEmpty()
                     ? testResultsOutputPath : "UiPathResults.xml";
 
@@ -187,39 +176,20 @@ public class UiPathTest extends Recorder implements SimpleBuildStep, JUnitTask {
                     new FilePath(launcher.getChannel(), envVars.expand(resultsOutputPath)) :
                     workspace.child(envVars.expand(resultsOutputPath));
 
-            testOptions.setTestReportDestination(expandedTestResultsOutputPath.getRemote());
-            testOptions.setTimeout(timeout != null ? timeout : TimeoutDefault);
-
-            util.setCredentialsFromCredentialsEntry(credentials, testOptions, run);
-
-            String language = Locale.getDefault().getLanguage();
-            String country = Locale.getDefault().getCountry();
-            String localization = country.isEmpty() ? language : language + "-" + country;
-            testOptions.setLanguage(localization);
-
-            testOptions.setTraceLevel(traceLevel);
-
-            if (parametersFilePath != null && !parametersFilePath.isEmpty())
-            {
-                FilePath parametersPath = parametersFilePath.contains("${WORKSPACE}") ?
-                        new FilePath(launcher.getChannel(), envVars.expand(parametersFilePath)) :
-                        workspace.child(envVars.expand(parametersFilePath));
-                parametersPath.mkdirs();
-
-                testOptions.setParametersFilePath(parametersPath.getRemote());
+            int result;
+            boolean published = false;
+            if (expandedProjectPath != null && (getTestShards() > 1 || runRecentFailuresFirst || testImpactSelection)) {
+                // the shards publish their results as they complete
+                published = true;
+                result = runShards(run, workspace, envVars, launcher, listener, cliDetails, expandedProjectPath, expandedTestResultsOutputPath, tempRemoteDir);
+            } else {
+                if (getTestShards() > 1 || runRecentFailuresFirst || testImpactSelection) {
+                    listener.getLogger().println("Test sharding and ordering apply to test projects only, running the test set as a whole");
+                }
+                TestOptions testOptions = buildTestOptions(run, workspace, envVars, launcher, cliDetails, expandedProjectPath, expandedTestResultsOutputPath);
+                result = util.execute("RunTestsOptions", testOptions, tempRemoteDir, listener, envVars, launcher, false);
             }
 
-            testOptions.setAttachRobotLogs(attachRobotLogs);
-
-            testOptions.setRepositoryUrl(repositoryUrl);
-            testOptions.setRepositoryCommit(repositoryCommit);
-            testOptions.setRepositoryBranch(repositoryBranch);
-            testOptions.setRepositoryType(repositoryType);
-            testOptions.setProjectUrl(projectUrl);
-            testOptions.setReleaseNotes(releaseNotes);
-
-            int result = util.execute("RunTestsOptions", testOptions, tempRemoteDir, listener, envVars, launcher, false);
-
             if (result != 0 && !expandedTestResultsOutputPath.exists()) {
                 throw new AbortException(com.uipath.uipathpackage.Messages.GenericErrors_FailedToRunCommand());
             }
@@ -245,8 +215,14 @@ public class UiPathTest extends Recorder implements SimpleBuildStep, JUnitTask {
                 this.testResultIncludes += "*.xml";
             }
 
-            run.addAction(new TestResultProjectAction(run.getParent()));
-            publishTestResults(run, workspace, launcher, listener);
+            if (!published) {
+                if (stdioMaxLength > 0) {
+                    truncateStdio(run, launcher, listener, expandedTestResultsOutputPath, tempRemoteDir, STDIO_ARTIFACTS);
+                }
+
+                run.addAction(new TestResultProjectAction(run.getParent()));
+                publishTestResults(run, workspace, launcher, listener);
+            }
         } catch (URISyntaxException e) {
             e.printStackTrace(listener.getLogger());
             throw new AbortException(e.getMessage());
@@ -260,6 +236,285 @@ public class UiPathTest extends Recorder implements SimpleBuildStep, JUnitTask {
         }
     }
 
+    /**
+     * Builds the options of a test run
+     *
+     * @param projectJson           project.json of the test project, null to run the test set
+     * @param testReportDestination JUnit report of the run
+     */
+    private TestOptions buildTestOptions(@Nonnull Run<?, ?> run, @Nonnull FilePath workspace, @Nonnull EnvVars envVars, @Nonnull Launcher launcher, @Nonnull CliDetails cliDetails,
+                                         @CheckForNull FilePath projectJson, @Nonnull FilePath testReportDestination) throws AbortException {
+        ResourceBundle rb = ResourceBundle.getBundle("config");
+        String buildTag = envVars.get(EnvironmentVariablesConsts.BUILD_TAG);
+
+        TestOptions testOptions = new TestOptions();
+        if (disableBuiltInNugetFeeds != null && disableBuiltInNugetFeeds) {
+            testOptions.setDisableBuiltInNugetFeeds(true);
+        }
+
+        if (cliDetails.getActualVersion().supportsNewTelemetry()) {
+            testOptions.populateAdditionalTelemetryData();
+            testOptions.setPipelineCorrelationId(buildTag);
+            testOptions.setCliGetFlow(cliDetails.getGetFlow());
+        }
+
+        if (projectJson != null)
+        {
+            String environments = envVars.expand(((TestProjectEntry) testTarget).getEnvironments());
+            testOptions.setProjectPath(projectJson.getRemote());
+
+            if (environments != null && !environments.trim().isEmpty())
+            {
+                testOptions.setEnvironment(environments);
+            }
+        }
+        else {
+            testOptions.setTestSet(((TestSetEntry)testTarget).getTestSet());
+        }
+
+        String orchestratorTenantFormatted = envVars.expand(orchestratorTenant.trim()).isEmpty() ? util.getConfigValue(rb, "UiPath.DefaultTenant") : envVars.expand(orchestratorTenant.trim());
+        testOptions.setOrchestratorUrl(orchestratorAddress);
+        testOptions.setOrchestratorTenant(orchestratorTenantFormatted);
+        testOptions.setOrganizationUnit(envVars.expand(folderName.trim()));
+        testOptions.setTestReportType("junit");
+
+        testOptions.setTestReportDestination(testReportDestination.getRemote());
+        testOptions.setTimeout(timeout != null ? timeout : TimeoutDefault);
+
+        util.setCredentialsFromCredentialsEntry(credentials, testOptions, run);
+
+        String language = Locale.getDefault().getLanguage();
+        String country = Locale.getDefault().getCountry();
+        String localization = country.isEmpty() ? language : language + "-" + country;
+        testOptions.setLanguage(localization);
+
+        testOptions.setTraceLevel(traceLevel);
+
+        if (parametersFilePath != null && !parametersFilePath.isEmpty())
+        {
+            FilePath parametersPath = parametersFilePath.contains("${WORKSPACE}") ?
+                    new FilePath(launcher.getChannel(), envVars.expand(parametersFilePath)) :
+                    workspace.child(envVars.expand(parametersFilePath));
+            parametersPath.mkdirs();
+
+            testOptions.setParametersFilePath(parametersPath.getRemote());
+        }
+
+        testOptions.setAttachRobotLogs(attachRobotLogs);
+
+        testOptions.setRepositoryUrl(repositoryUrl);
+        testOptions.setRepositoryCommit(repositoryCommit);
+        testOptions.setRepositoryBranch(repositoryBranch);
+        testOptions.setRepositoryType(repositoryType);
+        testOptions.setProjectUrl(projectUrl);
+        testOptions.setReleaseNotes(releaseNotes);
+        return testOptions;
+    }
+
+    /**
+     * Splits the test cases of the test project into shards balanced by the durations of the previous builds,
+     * runs the shards concurrently, each on the robots Orchestrator assigns to it, then merges their JUnit reports.
+     * When runRecentFailuresFirst is set, the test cases failed in the previous builds run first on their own,
+     * and when failFastThreshold failed test cases are seen, the shards left are skipped and the running ones are no longer waited for.
+     * When testImpactSelection is set, only the test cases impacted by the changes are run.
+     * The results of each shard are published when it completes.
+     *
+     * @return int 0 if every shard succeeded
+     */
+    private int runShards(@Nonnull Run<?, ?> run, @Nonnull FilePath workspace, @Nonnull EnvVars envVars, @Nonnull Launcher launcher, @Nonnull TaskListener listener, @Nonnull CliDetails cliDetails,
+                          @Nonnull FilePath projectJson, @Nonnull FilePath testReportDestination, @Nonnull FilePath tempRemoteDir) throws IOException, InterruptedException {
+        PrintStream logger = listener.getLogger();
+        List<String> testCases = TestShards.listTestCases(projectJson);
+        List<String> projectTestCases = testCases;
+        TestHistory history = TestHistory.load(run, projectJson);
+
+        TestImpact impact = null;
+        if (testImpactSelection) {
+            // the recent failures are run again until they pass, even if their workflows did not change
+            impact = TestImpact.select(run, workspace, projectJson, testCases, history.getRecentFailures(testCases), listener);
+            if (impact.getSelected() != null) {
+                testCases = impact.getSelected();
+            }
+        }
+
+        List<String> recentFailures = runRecentFailuresFirst ? history.getRecentFailures(testCases) : Collections.emptyList();
+        List<String> remainingTestCases = new ArrayList<>(testCases);
+        remainingTestCases.removeAll(recentFailures);
+        List<List<String>> shards = new ArrayList<>();
+        if (!recentFailures.isEmpty()) {
+            shards.add(recentFailures);
+        }
+        shards.addAll(TestShards.split(remainingTestCases, history, getTestShards()));
+        logger.println("Running " + testCases.size() + " test cases in " + shards.size() + " shards"
+                + (history.isEmpty() ? ", no previous test results to balance them" : ", balanced by the durations of the previous builds"));
+        if (shards.isEmpty() && impact != null) {
+            logger.println("No test case is impacted by the changes");
+        }
+        if (shards.isEmpty() && impact == null) {
+            TestOptions testOptions = buildTestOptions(run, workspace, envVars, launcher, cliDetails, projectJson, testReportDestination);
+            return util.execute("RunTestsOptions", testOptions, tempRemoteDir, listener, envVars, launcher, false);
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(shards.size(), 1), new NamingThreadFactory(new DaemonThreadFactory(), "UiPath test shards"));
+        CompletionService<Integer> completionService = new ExecutorCompletionService<>(executor);
+        Map<Future<Integer>, Integer> futures = new LinkedHashMap<>();
+        List<FilePath> shardReports = new ArrayList<>();
+        int result = 0;
+        int failedTestCases = 0;
+        try {
+            int first = 0;
+            if (!recentFailures.isEmpty()) {
+                logger.println("Running the " + recentFailures.size() + " test cases failed in the previous builds first");
+                futures.put(submitShard(completionService, run, workspace, envVars, launcher, logger, cliDetails, projectJson, tempRemoteDir, shards, 0, history, shardReports), 0);
+                first = 1;
+                ShardOutcome outcome = awaitShard(completionService, futures, shards, shardReports, history, run, launcher, listener, tempRemoteDir);
+                result |= outcome.exitCode != 0 ? 1 : 0;
+                failedTestCases += outcome.failedTestCases;
+            }
+
+            if (isFailFast(failedTestCases)) {
+                logger.println("Fail fast: " + failedTestCases + " test cases failed, skipping the " + (shards.size() - first) + " shards left");
+                result = 1;
+            } else {
+                for (int i = first; i < shards.size(); i++) {
+                    futures.put(submitShard(completionService, run, workspace, envVars, launcher, logger, cliDetails, projectJson, tempRemoteDir, shards, i, history, shardReports), i);
+                }
+                for (int pending = shards.size() - first; pending > 0; pending--) {
+                    ShardOutcome outcome = awaitShard(completionService, futures, shards, shardReports, history, run, launcher, listener, tempRemoteDir);
+                    result |= outcome.exitCode != 0 ? 1 : 0;
+                    failedTestCases += outcome.failedTestCases;
+                    if (pending > 1 && isFailFast(failedTestCases)) {
+                        logger.println("Fail fast: " + failedTestCases + " test cases failed, no longer waiting for the " + (pending - 1)
+                                + " shards still running, their test set executions keep running in Orchestrator until they complete");
+                        // stops the local CLI processes, the CLI has no command to stop a test set execution
+                        for (Future<Integer> future : futures.keySet()) {
+                            future.cancel(true);
+                        }
+                        result = 1;
+                        break;
+                    }
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // a destination without extension is a folder of reports
+        FilePath mergedReport = testReportDestination.getName().contains(".") ? testReportDestination : testReportDestination.child("UiPathResults.xml");
+        int merged = JUnitReports.merge(mergedReport, shardReports);
+        logger.println("Merged the test results of " + merged + " of " + shards.size() + " shards into " + mergedReport.getRemote());
+        if (merged == 0) {
+            mergedReport.delete();
+        }
+        if (impact != null && (merged > 0 || shards.isEmpty())) {
+            impact.save(run);
+        }
+        history.save(projectTestCases);
+        return result;
+    }
+
+    /**
+     * Truncates the long test case outputs of the reports before they are published,
+     * and archives the full outputs with the build rather than keeping them in the test results
+     */
+    private void truncateStdio(@Nonnull Run<?, ?> run, @Nonnull Launcher launcher, @Nonnull TaskListener listener, @Nonnull FilePath testResults, @Nonnull FilePath tempRemoteDir, @Nonnull String artifactsFolder) throws IOException, InterruptedException {
+        List<FilePath> reports = testResults.isDirectory() ? Arrays.asList(testResults.list("*.xml")) : Collections.singletonList(testResults);
+        FilePath stdioDir = tempRemoteDir.child("stdio");
+        Map<String, String> artifacts = new LinkedHashMap<>();
+        for (FilePath report : reports) {
+            String artifactPrefix = artifactsFolder + "/" + report.getBaseName();
+            FilePath sideFilesDir = stdioDir.child(artifactPrefix);
+            for (String sideFile : JUnitReports.truncateStdio(report, sideFilesDir, artifactPrefix, stdioMaxLength)) {
+                artifacts.put(artifactPrefix + "/" + sideFile, artifactPrefix + "/" + sideFile);
+            }
+        }
+        if (artifacts.isEmpty()) {
+            return;
+        }
+
+        listener.getLogger().println("Truncated " + artifacts.size() + " test outputs longer than " + stdioMaxLength + " characters, archiving the full outputs in " + artifactsFolder);
+        run.getArtifactManager().archive(stdioDir, launcher, new StreamBuildListener(listener.getLogger(), run.getCharset()), artifacts);
+    }
+
+    private boolean isFailFast(int failedTestCases) {
+        return failFastThreshold > 0 && failedTestCases >= failFastThreshold;
+    }
+
+    private Future<Integer> submitShard(@Nonnull CompletionService<Integer> completionService, @Nonnull Run<?, ?> run, @Nonnull FilePath workspace, @Nonnull EnvVars envVars, @Nonnull Launcher launcher,
+                                        @Nonnull PrintStream logger, @Nonnull CliDetails cliDetails, @Nonnull FilePath projectJson, @Nonnull FilePath tempRemoteDir,
+                                        @Nonnull List<List<String>> shards, int index, @Nonnull TestHistory history, @Nonnull List<FilePath> shardReports) {
+        int shard = index + 1;
+        List<String> shardTestCases = shards.get(index);
+        FilePath shardDir = tempRemoteDir.child("shard-" + shard);
+        FilePath shardReport = shardDir.child("UiPathResults.xml");
+        shardReports.add(shardReport);
+        logger.println(String.format(Locale.ENGLISH, "Shard %d: %d test cases, estimated %.0f s", shard, shardTestCases.size(), TestShards.estimateDuration(shardTestCases, history)));
+
+        return completionService.submit(() -> {
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            StreamTaskListener shardListener = new StreamTaskListener(output, run.getCharset());
+            long startTime = System.nanoTime();
+            AtomicInteger exitCode = new AtomicInteger();
+            String error = ParallelTasks.run(() -> {
+                // the slowest test cases of the shard come first
+                FilePath shardProjectJson = TestShards.createShardProject(projectJson, shardDir.child("project"), shardTestCases, shards.size() > 1 ? shard : 0);
+                TestOptions testOptions = buildTestOptions(run, workspace, envVars, launcher, cliDetails, shardProjectJson, shardReport);
+                exitCode.set(util.execute("RunTestsOptions", testOptions, shardDir, shardListener, envVars, launcher, false));
+            }, shardListener);
+            int shardResult = error != null ? -1 : exitCode.get();
+
+            shardListener.getLogger().flush();
+            synchronized (logger) {
+                logger.println("----- shard " + shard + " of " + shards.size() + " -----");
+                logger.write(output.toByteArray());
+                logger.println(String.format(Locale.ENGLISH, "Shard %d completed in %d s with exit code %d", shard, TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - startTime), shardResult));
+            }
+            return shardResult;
+        });
+    }
+
+    /**
+     * Waits for the next shard to complete, records its results in the history and publishes them,
+     * so they show in the build while the other shards run
+     */
+    private ShardOutcome awaitShard(@Nonnull CompletionService<Integer> completionService, @Nonnull Map<Future<Integer>, Integer> futures, @Nonnull List<List<String>> shards,
+                                    @Nonnull List<FilePath> shardReports, @Nonnull TestHistory history, @Nonnull Run<?, ?> run, @Nonnull Launcher launcher, @Nonnull TaskListener listener, @Nonnull FilePath tempRemoteDir) throws IOException, InterruptedException {
+        Future<Integer> future = completionService.take();
+        int index = futures.remove(future);
+        int exitCode = ParallelTasks.await(future);
+
+        FilePath shardReport = shardReports.get(index);
+        List<JUnitReports.TestCaseOutcome> results = JUnitReports.readTestCases(shardReport);
+        history.record(shards.get(index), results);
+        int failedTestCases = 0;
+        for (JUnitReports.TestCaseOutcome result : results) {
+            failedTestCases += result.isFailed() ? 1 : 0;
+        }
+        if (shardReport.exists()) {
+            if (stdioMaxLength > 0) {
+                truncateStdio(run, launcher, listener, shardReport, tempRemoteDir, STDIO_ARTIFACTS + "/shard-" + (index + 1));
+            }
+            if (run.getAction(TestResultProjectAction.class) == null) {
+                run.addAction(new TestResultProjectAction(run.getParent()));
+            }
+            // the results of the shards are merged into the test results of the build as they are published
+            this.testResultIncludes = shardReport.getName();
+            publishTestResults(run, Objects.requireNonNull(shardReport.getParent()), launcher, listener);
+        }
+        listener.getLogger().println("Shard " + (index + 1) + " published with " + failedTestCases + " failed test cases, " + futures.size() + " shards still running");
+        return new ShardOutcome(exitCode, failedTestCases);
+    }
+
+    private static final class ShardOutcome {
+        private final int exitCode;
+        private final int failedTestCases;
+
+        private ShardOutcome(int exitCode, int failedTestCases) {
+            this.exitCode = exitCode;
+            this.failedTestCases = failedTestCases;
+        }
+    }
+
     /**
      * Declares the scope of the synchronization monitor this {@link BuildStep} expects from outside.
      * {@link BuildStepMonitor#NONE}
@@ -417,6 +672,77 @@ public class UiPathTest extends Recorder implements SimpleBuildStep, JUnitTask {
     	this.attachRobotLogs = attachRobotLogs;
     }
 
+    /**
+     * Number of shards the test cases of a test project are split into, 1 to run the test project as a whole
+     *
+     * @param testShards number of shards
+     */
+    @DataBoundSetter
+    public void setTestShards(int testShards) {
+        this.testShards = testShards;
+    }
+
+    public int getTestShards() {
+        return Math.max(testShards, 1);
+    }
+
+    /**
+     * Run the test cases of a test project failed in the previous builds before the other test cases
+     *
+     * @param runRecentFailuresFirst Boolean field whether to run the recent failures first
+     */
+    @DataBoundSetter
+    public void setRunRecentFailuresFirst(boolean runRecentFailuresFirst) {
+        this.runRecentFailuresFirst = runRecentFailuresFirst;
+    }
+
+    public boolean isRunRecentFailuresFirst() {
+        return runRecentFailuresFirst;
+    }
+
+    /**
+     * Number of failed test cases after which the shards left of a test project are skipped or no longer waited for, 0 to run every shard
+     *
+     * @param failFastThreshold number of failed test cases
+     */
+    @DataBoundSetter
+    public void setFailFastThreshold(int failFastThreshold) {
+        this.failFastThreshold = failFastThreshold;
+    }
+
+    public int getFailFastThreshold() {
+        return failFastThreshold;
+    }
+
+    /**
+     * Run only the test cases of a test project impacted by the workflows changed since the previous build
+     *
+     * @param testImpactSelection Boolean field whether to select the impacted test cases
+     */
+    @DataBoundSetter
+    public void setTestImpactSelection(boolean testImpactSelection) {
+        this.testImpactSelection = testImpactSelection;
+    }
+
+    public boolean isTestImpactSelection() {
+        return testImpactSelection;
+    }
+
+    /**
+     * Maximum length of the output of a test case kept in the test results, 0 to keep the whole output.
+     * The full output of a truncated test case is archived with the build.
+     *
+     * @param stdioMaxLength maximum number of characters
+     */
+    @DataBoundSetter
+    public void setStdioMaxLength(int stdioMaxLength) {
+        this.stdioMaxLength = stdioMaxLength;
+    }
+
+    public int getStdioMaxLength() {
+        return stdioMaxLength;
+    }
+
     @DataBoundSetter
     public void setDisableBuiltInNugetFeeds(Boolean disableBuiltInNugetFeeds) {
         this.disableBuiltInNugetFeeds = disableBuiltInNugetFeeds;
@@ -520,7 +846,8 @@ public class UiPathTest extends Recorder implements SimpleBuildStep, JUnitTask {
 
     @Override
     public boolean isKeepLongStdio() {
-        return true;
+        // the outputs are already truncated to stdioMaxLength, when set
+        return stdioMaxLength <= 0;
     }
 
     @Override
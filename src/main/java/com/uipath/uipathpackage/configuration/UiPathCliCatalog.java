@@ -0,0 +1,194 @@
+package com.uipath.uipathpackage.configuration;
+
+import hudson.Extension;
+import hudson.init.InitMilestone;
+import hudson.init.Initializer;
+import hudson.model.AsyncPeriodicWork;
+import hudson.model.TaskListener;
+import jenkins.model.Jenkins;
+import org.apache.commons.lang.StringUtils;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import javax.annotation.Nonnull;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Catalog of the installable CLI versions.
+ * The versions shipped with the plugin are extended by an index refreshed from the configured feed url or controller file,
+ * the last index is kept under JENKINS_HOME so it is available right after a restart.
+ * The index is a JSON array of CLI configurations, the same format as the built-in configuration.
+ */
+public final class UiPathCliCatalog {
+    private static final Logger LOGGER = Logger.getLogger(UiPathCliCatalog.class.getName());
+    private static final int CONNECT_TIMEOUT_MILLIS = 30_000;
+    private static final int READ_TIMEOUT_MILLIS = 60_000;
+
+    private static volatile String lastSource;
+    private static volatile long lastRefreshMillis;
+
+    private UiPathCliCatalog() {
+        // Prevent instantiation
+    }
+
+    /**
+     * Loads the last persisted index at startup
+     */
+    @Initializer(after = InitMilestone.EXTENSIONS_AUGMENTED)
+    public static void loadPersistedIndex() {
+        UiPathGlobalConfiguration globalConfiguration = UiPathGlobalConfiguration.get();
+        String source = globalConfiguration != null ? StringUtils.trimToNull(globalConfiguration.getCliCatalogUrl()) : null;
+        File indexFile = getIndexFile();
+        if (source == null || !indexFile.isFile()) {
+            return;
+        }
+
+        try {
+            String json = new String(Files.readAllBytes(indexFile.toPath()), StandardCharsets.UTF_8);
+            int count = apply(UiPathCliConfiguration.parseConfigurations(json));
+            lastSource = source;
+            lastRefreshMillis = indexFile.lastModified();
+            LOGGER.log(Level.FINE, "Loaded {0} UiPath CLI versions from {1}", new Object[]{count, indexFile});
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to load the UiPath CLI catalog " + indexFile + ", using the built-in versions", e);
+        }
+    }
+
+    /**
+     * Refreshes the catalog from its configured source, parsing it without blocking the steps reading the configuration
+     *
+     * @return int the number of available versions
+     */
+    public static synchronized int refresh() throws IOException {
+        UiPathGlobalConfiguration globalConfiguration = UiPathGlobalConfiguration.get();
+        String source = globalConfiguration != null ? StringUtils.trimToNull(globalConfiguration.getCliCatalogUrl()) : null;
+        if (source == null) {
+            lastSource = null;
+            return apply(Collections.emptyList());
+        }
+
+        String json = read(source);
+        List<UiPathCliConfiguration.Configuration> configurations = UiPathCliConfiguration.parseConfigurations(json);
+        validate(configurations, source);
+
+        File indexFile = getIndexFile();
+        File parentDir = indexFile.getParentFile();
+        if (!parentDir.isDirectory() && !parentDir.mkdirs()) {
+            throw new IOException("Unable to create the directory " + parentDir);
+        }
+        File writing = new File(parentDir, indexFile.getName() + ".tmp");
+        Files.write(writing.toPath(), json.getBytes(StandardCharsets.UTF_8));
+        Files.move(writing.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        lastSource = source;
+        lastRefreshMillis = System.currentTimeMillis();
+        return apply(configurations);
+    }
+
+    private static boolean isRefreshDue() {
+        UiPathGlobalConfiguration globalConfiguration = UiPathGlobalConfiguration.get();
+        if (globalConfiguration == null) {
+            return false;
+        }
+
+        String source = StringUtils.trimToNull(globalConfiguration.getCliCatalogUrl());
+        if (!Objects.equals(source, lastSource)) {
+            return true;
+        }
+        return source != null && System.currentTimeMillis() - lastRefreshMillis >= TimeUnit.HOURS.toMillis(globalConfiguration.getCliCatalogRefreshInterval());
+    }
+
+    /**
+     * Publishes the built-in versions extended by the catalog ones, a catalog entry overrides a built-in one with the same key
+     */
+    private static int apply(@Nonnull List<UiPathCliConfiguration.Configuration> configurations) throws IOException {
+        UiPathCliConfiguration cliConfiguration = UiPathCliConfiguration.getInstance();
+        Map<String, UiPathCliConfiguration.Configuration> merged = new LinkedHashMap<>();
+        for (UiPathCliConfiguration.Configuration configuration : cliConfiguration.getBuiltInConfigurations()) {
+            merged.put(configuration.getConfigurationUniqueId(), configuration);
+        }
+        for (UiPathCliConfiguration.Configuration configuration : configurations) {
+            merged.put(configuration.getConfigurationUniqueId(), configuration);
+        }
+        cliConfiguration.reload(merged.values());
+        return merged.size();
+    }
+
+    private static void validate(@Nonnull List<UiPathCliConfiguration.Configuration> configurations, @Nonnull String source) throws IOException {
+        for (UiPathCliConfiguration.Configuration configuration : configurations) {
+            if (StringUtils.isBlank(configuration.getName()) || configuration.getVersion() == null
+                    || StringUtils.isBlank(configuration.getVersion().getComplete()) || StringUtils.isBlank(configuration.getFeedUrl())) {
+                throw new IOException("The UiPath CLI catalog " + source + " has an entry without name, version or feedUrl");
+            }
+        }
+    }
+
+    private static String read(@Nonnull String source) throws IOException {
+        if (source.startsWith("http://") || source.startsWith("https://")) {
+            SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+            requestFactory.setConnectTimeout(CONNECT_TIMEOUT_MILLIS);
+            requestFactory.setReadTimeout(READ_TIMEOUT_MILLIS);
+            try {
+                String json = new RestTemplate(requestFactory).getForObject(source, String.class);
+                if (json == null) {
+                    throw new IOException("The UiPath CLI catalog " + source + " is empty");
+                }
+                return json;
+            } catch (RestClientException e) {
+                throw new IOException("Unable to download the UiPath CLI catalog " + source, e);
+            }
+        }
+
+        return new String(Files.readAllBytes(new File(source).toPath()), StandardCharsets.UTF_8);
+    }
+
+    private static File getIndexFile() {
+        return new File(Jenkins.get().getRootDir(), "caches/uipath-cli/catalog.json");
+    }
+
+    /**
+     * Refreshes the catalog when its source changed or its refresh interval elapsed
+     */
+    @Extension
+    public static class RefreshWork extends AsyncPeriodicWork {
+
+        public RefreshWork() {
+            super("UiPath CLI catalog refresh");
+        }
+
+        @Override
+        public long getRecurrencePeriod() {
+            return TimeUnit.MINUTES.toMillis(15);
+        }
+
+        @Override
+        protected void execute(TaskListener listener) throws IOException {
+            if (!isRefreshDue()) {
+                return;
+            }
+
+            try {
+                int count = refresh();
+                listener.getLogger().println("Refreshed the UiPath CLI catalog, " + count + " versions available");
+            } catch (IOException e) {
+                // retried at the next period, the previous catalog stays in use
+                lastRefreshMillis = System.currentTimeMillis();
+                throw e;
+            }
+        }
+
+        @Override
+        protected Level getNormalLoggingLevel() {
+            return Level.FINE;
+        }
+    }
+}
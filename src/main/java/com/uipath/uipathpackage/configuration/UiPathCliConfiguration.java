@@ -4,13 +4,17 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.uipath.uipathpackage.actions.AddEnvironmentVariablesAction;
+import com.uipath.uipathpackage.util.CacheDirectoryManifest;
 import com.uipath.uipathpackage.util.EnvironmentVariablesConsts;
 import edu.umd.cs.findbugs.annotations.NonNull;
 import hudson.AbortException;
 import hudson.EnvVars;
 import hudson.FilePath;
 import hudson.Launcher;
+import hudson.model.Computer;
+import hudson.model.Node;
 import hudson.model.Run;
+import jenkins.model.Jenkins;
 import org.apache.commons.lang.StringUtils;
 
 import javax.annotation.Nonnull;
@@ -21,46 +25,94 @@ import java.util.*;
 
 public final class UiPathCliConfiguration {
 
-    private static UiPathCliConfiguration INSTANCE = null;
     public static final String WIN_PLATFORM = "WIN";
     public static final String X_PLATFORM = "X";
     public static final String SELECTED_CLI_VERSION_KEY = "SELECTED_CLI_VERSION_KEY";
     public static final String DEFAULT_CLI_VERSION_KEY = "UiPath.CLI.Version";
-    private final String INSTALL_PLATFORM_CONFIGURATION_KEY = "UiPath.CLI.InstallPlatform.Configuration";
-    private final String INSTALL_PLATFORM_CONFIGURATION_COUNT_KEY = "UiPath.CLI.InstallPlatform.Configuration.Count";
-    private final Map<String,Configuration> cliConfigurationMap;
-    private final int configurationCount;
+    private static final String INSTALL_PLATFORM_CONFIGURATION_KEY = "UiPath.CLI.InstallPlatform.Configuration";
+    private final String defaultCliVersionKey;
+    private final List<Configuration> builtInConfigurations;
+    private volatile Snapshot snapshot;
+
+    /**
+     * Lazily initialized once by the class loader, so getInstance needs no lock.
+     * */
+    private static final class Holder {
+        private static final UiPathCliConfiguration INSTANCE;
+        private static final JsonProcessingException FAILURE;
+
+        static {
+            UiPathCliConfiguration instance = null;
+            JsonProcessingException failure = null;
+            try {
+                instance = new UiPathCliConfiguration();
+            } catch (JsonProcessingException e) {
+                failure = e;
+            }
+            INSTANCE = instance;
+            FAILURE = failure;
+        }
+    }
 
     /**
     * This to make this class Singleton , as only want a single configuration to be used through-out our plugin , initialised only once.
     * */
     private UiPathCliConfiguration() throws JsonProcessingException {
         ResourceBundle resourceBundle = ResourceBundle.getBundle("config");
-        configurationCount = Integer.parseInt(resourceBundle.getString(INSTALL_PLATFORM_CONFIGURATION_COUNT_KEY));
-        cliConfigurationMap = initializeConfigurationMap(resourceBundle);
+        defaultCliVersionKey = WIN_PLATFORM + "_" + resourceBundle.getString(DEFAULT_CLI_VERSION_KEY);
+        builtInConfigurations = Collections.unmodifiableList(parseConfigurations(resourceBundle.getString(INSTALL_PLATFORM_CONFIGURATION_KEY)));
+        snapshot = new Snapshot(builtInConfigurations);
     }
 
-    public synchronized static UiPathCliConfiguration getInstance() throws JsonProcessingException {
-        if (INSTANCE == null) {
-            INSTANCE = new UiPathCliConfiguration();
+    public static UiPathCliConfiguration getInstance() throws JsonProcessingException {
+        if (Holder.FAILURE != null) {
+            throw Holder.FAILURE;
         }
-        return INSTANCE;
+        return Holder.INSTANCE;
     }
 
+    /**
+     * Gets the CLI configurations by version key, an immutable snapshot shared by all callers
+     *
+     * @return Map the configurations
+     */
     public Map<String,Configuration> getConfiguration() {
-        Map<String,Configuration> configuration = new HashMap<>();
-        cliConfigurationMap.forEach((versionKey,cliConfig)->{
-            configuration.put(versionKey,cliConfig.clone());
-        });
-        return configuration;
+        return snapshot.configurations;
+    }
+
+    /**
+     * Atomically replaces the CLI configurations, the steps running meanwhile keep the snapshot they already read
+     *
+     * @param configurations the new configurations
+     */
+    public void reload(@Nonnull Collection<Configuration> configurations) {
+        snapshot = new Snapshot(configurations);
+    }
+
+    /**
+     * Gets the CLI configurations sorted for display, newest version first, sorted once per snapshot
+     *
+     * @return List the configurations
+     */
+    public List<Configuration> getSortedConfigurations() {
+        return snapshot.sortedConfigurations;
+    }
+
+    /**
+     * Gets the CLI configurations shipped with the plugin
+     *
+     * @return List the configurations
+     */
+    public List<Configuration> getBuiltInConfigurations() {
+        return builtInConfigurations;
     }
 
     public int getConfigurationCount() {
-        return configurationCount;
+        return snapshot.configurations.size();
     }
 
     public String getDefaultCliVersionKey() {
-        return WIN_PLATFORM + "_" + ResourceBundle.getBundle("config").getString(DEFAULT_CLI_VERSION_KEY);
+        return defaultCliVersionKey;
     }
 
     public String getSelectedOrDefaultCliVersionKey(@Nonnull EnvVars envVars) {
@@ -69,7 +121,7 @@ public final class UiPathCliConfiguration {
     }
 
     public void updateSelectedCliVersionKey(@NonNull Run<?, ?> run, @Nonnull String cliVersionKey) throws AbortException {
-        if(!cliConfigurationMap.containsKey(cliVersionKey)) {
+        if(!snapshot.configurations.containsKey(cliVersionKey)) {
             throw new AbortException("(cacheRootPath) invalid cli configuration might have caused this issue.");
         }
         Map<String, String> addedEnvVars = Collections.singletonMap(SELECTED_CLI_VERSION_KEY, cliVersionKey);
@@ -78,33 +130,62 @@ public final class UiPathCliConfiguration {
     }
 
     public FilePath getCliHomeDirectory(@Nonnull Launcher launcher, @Nonnull EnvVars env) throws IOException, InterruptedException {
-        FilePath cliHomeDir = new FilePath(launcher.getChannel(), env.expand("${WORKSPACE}")).child("CLI");
+        UiPathGlobalConfiguration globalConfiguration = UiPathGlobalConfiguration.get();
+        FilePath cliHomeDir = globalConfiguration != null && globalConfiguration.isNodeCliCache() ?
+                getNodeCacheRootDirectory(launcher, env).child("CLI") :
+                new FilePath(launcher.getChannel(), env.expand("${WORKSPACE}")).child("CLI");
         cliHomeDir.mkdirs();
         return cliHomeDir;
     }
 
+    /**
+     * Resolves the cache directory shared by all the workspaces of the node the launcher runs on.
+     * This is the configured node cache directory, or the uipath-cache folder under the node root directory.
+     */
+    public FilePath getNodeCacheRootDirectory(@Nonnull Launcher launcher, @Nonnull EnvVars env) throws IOException, InterruptedException {
+        UiPathGlobalConfiguration globalConfiguration = UiPathGlobalConfiguration.get();
+        if (globalConfiguration != null && StringUtils.isNotBlank(globalConfiguration.getCliCacheDirectory())) {
+            return new FilePath(launcher.getChannel(), env.expand(globalConfiguration.getCliCacheDirectory().trim()));
+        }
+
+        Jenkins jenkins = Jenkins.get();
+        for (Computer computer : jenkins.getComputers()) {
+            Node node = computer.getNode();
+            if (node != null && computer.getChannel() == launcher.getChannel()) {
+                FilePath nodeRootPath = node.getRootPath();
+                if (nodeRootPath != null) {
+                    return nodeRootPath.child("uipath-cache");
+                }
+            }
+        }
+
+        if (launcher.getChannel() == null || launcher.getChannel() == FilePath.localChannel) {
+            return jenkins.getRootPath().child("uipath-cache");
+        }
+        throw new AbortException("(cacheRootPath) unable to resolve the root directory of the node, configure the node cache directory instead.");
+    }
+
     public FilePath getCliRootCachedDirectoryPath(@Nonnull Launcher launcher, @Nonnull EnvVars env, String cliVersionKey) throws IOException, InterruptedException {
-        if(!cliConfigurationMap.containsKey(cliVersionKey)) {
+        Configuration configuration = snapshot.configurations.get(cliVersionKey);
+        if(configuration == null) {
             launcher.getListener().getLogger().println("(cacheRootPath) invalid cli configuration might have caused this issue.");
             throw new AbortException("(cacheRootPath) invalid cli configuration might have caused this issue.");
         }
 
-        Configuration configuration = cliConfigurationMap.get(cliVersionKey);
-
         FilePath cliHomeDir = getCliHomeDirectory(launcher,env);
         FilePath cachedRootPath = cliHomeDir.child("cached").child(configuration.getName()).child(configuration.getVersion().getComplete());
-        cachedRootPath.mkdirs();
+        // only the parent is created, the directory itself is published atomically once fully populated
+        Objects.requireNonNull(cachedRootPath.getParent()).mkdirs();
         return cachedRootPath;
     }
 
     public FilePath getCliRootDownloadsDirectoryPath(@Nonnull Launcher launcher, @Nonnull EnvVars env, String cliVersionKey) throws IOException, InterruptedException {
-        if(!cliConfigurationMap.containsKey(cliVersionKey)) {
+        Configuration configuration = snapshot.configurations.get(cliVersionKey);
+        if(configuration == null) {
             launcher.getListener().getLogger().println("(downloadsRootPath) invalid cli configuration might have caused this issue.");
             throw new AbortException("(downloadsRootPath) invalid cli configuration might have caused this issue.");
         }
 
-        Configuration configuration = cliConfigurationMap.get(cliVersionKey);
-
         FilePath cliHomeDir = getCliHomeDirectory(launcher,env);
         FilePath downloadsRootPath = cliHomeDir.child("downloads").child(configuration.getName()).child(configuration.getVersion().getComplete());
         downloadsRootPath.mkdirs();
@@ -114,15 +195,17 @@ public final class UiPathCliConfiguration {
     public Optional<FilePath> getCliPath(@Nonnull Launcher launcher, @Nonnull EnvVars env, String cliVersionKey) {
         PrintStream logger = launcher.getListener().getLogger();
         try {
-            FilePath cliCachedPath = getCliRootCachedDirectoryPath(launcher, env, cliVersionKey);
-            Configuration configuration = cliConfigurationMap.get(cliVersionKey);
+            FilePath cliRootCachedPath = getCliRootCachedDirectoryPath(launcher, env, cliVersionKey);
+            Configuration configuration = snapshot.configurations.get(cliVersionKey);
+            FilePath cliCachedPath;
             if (configuration.getVersion().getMajor() >= 22) {
-                cliCachedPath = cliCachedPath.child("tools").child("uipcli.dll");
+                cliCachedPath = cliRootCachedPath.child("tools").child("uipcli.dll");
             } else {
                 /** To Support Backward compatibility cli-21.10.xxx.xxx conventions needs to be followed.*/
-                cliCachedPath = cliCachedPath.child("lib").child("net461").child("uipcli.exe");
+                cliCachedPath = cliRootCachedPath.child("lib").child("net461").child("uipcli.exe");
             }
-            if (cliCachedPath.exists()) {
+            // the completion marker is written last, a directory without it is a partial or legacy extraction
+            if (CacheDirectoryManifest.isComplete(cliRootCachedPath)) {
                 return Optional.of(cliCachedPath);
             }
         } catch (Exception e) {
@@ -132,21 +215,64 @@ public final class UiPathCliConfiguration {
         return Optional.empty();
     }
 
-    private Map<String,Configuration> initializeConfigurationMap(@Nonnull ResourceBundle resourceBundle) throws JsonProcessingException {
-
-        String json = resourceBundle.getString(INSTALL_PLATFORM_CONFIGURATION_KEY);
+    /**
+     * Parses a JSON array of CLI configurations
+     *
+     * @param json the configurations
+     * @return List the configurations
+     */
+    public static List<Configuration> parseConfigurations(@Nonnull String json) throws JsonProcessingException {
         ObjectMapper mapper = new ObjectMapper();
         Configuration[] configurations = mapper.readValue(json, new TypeReference<Configuration[]>() {
         });
-        Map<String,Configuration> cliConfigurationMap = new HashMap<>();
-        for (Configuration configuration :
-                configurations) {
-            cliConfigurationMap.put(configuration.getConfigurationUniqueId(),configuration);
+        return Arrays.asList(configurations);
+    }
+
+    /**
+     * Immutable configurations indexed by version key, published as a whole through a volatile reference
+     */
+    private static final class Snapshot {
+        private static final Comparator<Configuration> NEWEST_FIRST = Comparator
+                .comparing((Configuration configuration) -> configuration.getVersion().getComplete(), Snapshot::compareVersions).reversed()
+                .thenComparing(Configuration::getConfigurationUniqueId);
+
+        private final Map<String,Configuration> configurations;
+        private final List<Configuration> sortedConfigurations;
+
+        private Snapshot(@Nonnull Collection<Configuration> configurations) {
+            Map<String,Configuration> cliConfigurationMap = new LinkedHashMap<>();
+            for (Configuration configuration : configurations) {
+                cliConfigurationMap.put(configuration.getConfigurationUniqueId(), configuration);
+            }
+            this.configurations = Collections.unmodifiableMap(cliConfigurationMap);
+
+            List<Configuration> sorted = new ArrayList<>(cliConfigurationMap.values());
+            sorted.sort(NEWEST_FIRST);
+            this.sortedConfigurations = Collections.unmodifiableList(sorted);
+        }
+
+        private static int compareVersions(String first, String second) {
+            String[] firstParts = first.split("\\.");
+            String[] secondParts = second.split("\\.");
+            for (int i = 0; i < Math.max(firstParts.length, secondParts.length); i++) {
+                int comparison = Long.compare(parseVersionPart(firstParts, i), parseVersionPart(secondParts, i));
+                if (comparison != 0) {
+                    return comparison;
+                }
+            }
+            return 0;
+        }
+
+        private static long parseVersionPart(String[] parts, int index) {
+            try {
+                return index < parts.length ? Long.parseLong(parts[index].replaceAll("\\D.*$", "")) : 0;
+            } catch (NumberFormatException e) {
+                return 0;
+            }
         }
-        return cliConfigurationMap;
     }
 
-    public static final class Configuration implements Cloneable , Serializable {
+    public static final class Configuration implements Serializable {
         private String displayName;
         private String name;
         private Version version;
@@ -154,6 +280,7 @@ public final class UiPathCliConfiguration {
         private boolean linuxCompatible;
         private String description;
         private String feedUrl;
+        private String sha512;
 
         public Configuration() {
         }
@@ -168,6 +295,11 @@ public final class UiPathCliConfiguration {
             this.feedUrl = feedUrl;
         }
 
+        public Configuration(String displayName, String name, Version version, boolean windowsCompatible, boolean linuxCompatible, String description, String feedUrl, String sha512) {
+            this(displayName, name, version, windowsCompatible, linuxCompatible, description, feedUrl);
+            this.sha512 = sha512;
+        }
+
         public String getDisplayName() {
             return displayName;
         }
@@ -196,18 +328,18 @@ public final class UiPathCliConfiguration {
             return feedUrl;
         }
 
-        public String getConfigurationUniqueId() {
-            return (this.getWindowsCompatible() ? WIN_PLATFORM : X_PLATFORM) + "_" + this.getVersion().getComplete();
+        /**
+         * Hex encoded SHA-512 of the package served at the feed url, the download is not verified when it is missing
+         */
+        public String getSha512() {
+            return sha512;
         }
 
-        @Override
-        protected Configuration clone() {
-            Version version = new Version(this.version.major, this.version.minor, this.version.patch, this.version.complete);
-            Configuration configuration = new Configuration(this.displayName, this.name, version, this.windowsCompatible, this.linuxCompatible, this.description, this.feedUrl);
-            return configuration;
+        public String getConfigurationUniqueId() {
+            return (this.getWindowsCompatible() ? WIN_PLATFORM : X_PLATFORM) + "_" + this.getVersion().getComplete();
         }
 
-        public static final class Version implements Cloneable,Serializable {
+        public static final class Version implements Serializable {
 
             private int major;
             private int minor;
@@ -239,12 +371,6 @@ public final class UiPathCliConfiguration {
             public String getComplete() {
                 return complete;
             }
-
-            @Override
-            protected Version clone() {
-                Version version = new Version(this.major, this.minor, this.patch, this.complete);
-                return version;
-            }
         }
 
     }
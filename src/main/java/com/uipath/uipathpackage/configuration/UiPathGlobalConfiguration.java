@@ -0,0 +1,227 @@
+package com.uipath.uipathpackage.configuration;
+
+import hudson.Extension;
+import jenkins.model.GlobalConfiguration;
+import org.jenkinsci.Symbol;
+import org.kohsuke.stapler.DataBoundSetter;
+
+import javax.annotation.CheckForNull;
+
+/**
+ * Controller wide settings of the UiPath plugin, found under Manage Jenkins - System.
+ */
+@Symbol("uipath")
+@Extension
+public class UiPathGlobalConfiguration extends GlobalConfiguration {
+    public static final int DEFAULT_CLI_MIRROR_MAX_SIZE = 2048;
+    public static final int DEFAULT_CLI_PREWARM_CONCURRENCY = 2;
+    public static final int DEFAULT_CLI_CATALOG_REFRESH_INTERVAL = 24;
+    public static final int DEFAULT_NUGET_CACHE_MAX_SIZE = 10240;
+
+    private boolean nodeCliCache;
+    private String cliCacheDirectory;
+    private boolean cliMirror;
+    private String cliMirrorUrl;
+    private int cliMirrorMaxSize = DEFAULT_CLI_MIRROR_MAX_SIZE;
+    private String cliPrewarmVersions;
+    private String cliPrewarmLabel;
+    private int cliPrewarmConcurrency = DEFAULT_CLI_PREWARM_CONCURRENCY;
+    private String cliCatalogUrl;
+    private int cliCatalogRefreshInterval = DEFAULT_CLI_CATALOG_REFRESH_INTERVAL;
+    private boolean nugetCache;
+    private int nugetCacheMaxSize = DEFAULT_NUGET_CACHE_MAX_SIZE;
+
+    public UiPathGlobalConfiguration() {
+        load();
+    }
+
+    /**
+     * Gets the global configuration, null when Jenkins is not running
+     *
+     * @return UiPathGlobalConfiguration the configuration
+     */
+    @CheckForNull
+    public static UiPathGlobalConfiguration get() {
+        return GlobalConfiguration.all().get(UiPathGlobalConfiguration.class);
+    }
+
+    /**
+     * Whether the CLI cache is shared by all the workspaces of a node instead of living in ${WORKSPACE}/CLI
+     *
+     * @return boolean nodeCliCache
+     */
+    public boolean isNodeCliCache() {
+        return nodeCliCache;
+    }
+
+    @DataBoundSetter
+    public void setNodeCliCache(boolean nodeCliCache) {
+        this.nodeCliCache = nodeCliCache;
+        save();
+    }
+
+    /**
+     * Directory on the nodes holding the shared cache, the node root directory is used when empty
+     *
+     * @return String cliCacheDirectory
+     */
+    public String getCliCacheDirectory() {
+        return cliCacheDirectory;
+    }
+
+    @DataBoundSetter
+    public void setCliCacheDirectory(String cliCacheDirectory) {
+        this.cliCacheDirectory = cliCacheDirectory;
+        save();
+    }
+
+    /**
+     * Whether the downloaded CLI packages are cached on the controller and copied from there to the nodes
+     *
+     * @return boolean cliMirror
+     */
+    public boolean isCliMirror() {
+        return cliMirror;
+    }
+
+    @DataBoundSetter
+    public void setCliMirror(boolean cliMirror) {
+        this.cliMirror = cliMirror;
+        save();
+    }
+
+    /**
+     * Internal NuGet flat container url the CLI packages are downloaded from instead of the public feed
+     *
+     * @return String cliMirrorUrl
+     */
+    public String getCliMirrorUrl() {
+        return cliMirrorUrl;
+    }
+
+    @DataBoundSetter
+    public void setCliMirrorUrl(String cliMirrorUrl) {
+        this.cliMirrorUrl = cliMirrorUrl;
+        save();
+    }
+
+    /**
+     * Size limit in MB of the controller CLI package cache
+     *
+     * @return int cliMirrorMaxSize
+     */
+    public int getCliMirrorMaxSize() {
+        return cliMirrorMaxSize > 0 ? cliMirrorMaxSize : DEFAULT_CLI_MIRROR_MAX_SIZE;
+    }
+
+    @DataBoundSetter
+    public void setCliMirrorMaxSize(int cliMirrorMaxSize) {
+        this.cliMirrorMaxSize = cliMirrorMaxSize;
+        save();
+    }
+
+    /**
+     * CLI version keys installed on the matching agents when they come online, separated by commas or whitespace
+     *
+     * @return String cliPrewarmVersions
+     */
+    public String getCliPrewarmVersions() {
+        return cliPrewarmVersions;
+    }
+
+    @DataBoundSetter
+    public void setCliPrewarmVersions(String cliPrewarmVersions) {
+        this.cliPrewarmVersions = cliPrewarmVersions;
+        save();
+    }
+
+    /**
+     * Label expression of the agents the CLI is pre-warmed on, all agents when empty
+     *
+     * @return String cliPrewarmLabel
+     */
+    public String getCliPrewarmLabel() {
+        return cliPrewarmLabel;
+    }
+
+    @DataBoundSetter
+    public void setCliPrewarmLabel(String cliPrewarmLabel) {
+        this.cliPrewarmLabel = cliPrewarmLabel;
+        save();
+    }
+
+    /**
+     * Maximum number of agents pre-warmed at the same time
+     *
+     * @return int cliPrewarmConcurrency
+     */
+    public int getCliPrewarmConcurrency() {
+        return cliPrewarmConcurrency > 0 ? cliPrewarmConcurrency : DEFAULT_CLI_PREWARM_CONCURRENCY;
+    }
+
+    @DataBoundSetter
+    public void setCliPrewarmConcurrency(int cliPrewarmConcurrency) {
+        this.cliPrewarmConcurrency = cliPrewarmConcurrency;
+        save();
+    }
+
+    /**
+     * Url or controller file of the CLI version catalog extending the built-in versions
+     *
+     * @return String cliCatalogUrl
+     */
+    public String getCliCatalogUrl() {
+        return cliCatalogUrl;
+    }
+
+    @DataBoundSetter
+    public void setCliCatalogUrl(String cliCatalogUrl) {
+        this.cliCatalogUrl = cliCatalogUrl;
+        save();
+    }
+
+    /**
+     * Interval in hours between two refreshes of the CLI version catalog
+     *
+     * @return int cliCatalogRefreshInterval
+     */
+    public int getCliCatalogRefreshInterval() {
+        return cliCatalogRefreshInterval > 0 ? cliCatalogRefreshInterval : DEFAULT_CLI_CATALOG_REFRESH_INTERVAL;
+    }
+
+    @DataBoundSetter
+    public void setCliCatalogRefreshInterval(int cliCatalogRefreshInterval) {
+        this.cliCatalogRefreshInterval = cliCatalogRefreshInterval;
+        save();
+    }
+
+    /**
+     * Whether the CLI runs restore the NuGet packages into a cache shared by all the workspaces of a node
+     *
+     * @return boolean nugetCache
+     */
+    public boolean isNugetCache() {
+        return nugetCache;
+    }
+
+    @DataBoundSetter
+    public void setNugetCache(boolean nugetCache) {
+        this.nugetCache = nugetCache;
+        save();
+    }
+
+    /**
+     * Size limit in MB of the NuGet cache of a node
+     *
+     * @return int nugetCacheMaxSize
+     */
+    public int getNugetCacheMaxSize() {
+        return nugetCacheMaxSize > 0 ? nugetCacheMaxSize : DEFAULT_NUGET_CACHE_MAX_SIZE;
+    }
+
+    @DataBoundSetter
+    public void setNugetCacheMaxSize(int nugetCacheMaxSize) {
+        this.nugetCacheMaxSize = nugetCacheMaxSize;
+        save();
+    }
+}
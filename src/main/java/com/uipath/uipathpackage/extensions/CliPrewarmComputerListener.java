@@ -0,0 +1,153 @@
+package com.uipath.uipathpackage.extensions;
+
+import com.uipath.uipathpackage.configuration.UiPathCliConfiguration;
+import com.uipath.uipathpackage.configuration.UiPathGlobalConfiguration;
+import com.uipath.uipathpackage.util.EnvironmentVariablesConsts;
+import com.uipath.uipathpackage.util.Utility;
+import hudson.EnvVars;
+import hudson.Extension;
+import hudson.Launcher;
+import hudson.model.Computer;
+import hudson.model.Label;
+import hudson.model.Node;
+import hudson.model.TaskListener;
+import hudson.slaves.ComputerListener;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.LogTaskListener;
+import hudson.util.NamingThreadFactory;
+import jenkins.model.Jenkins;
+import org.apache.commons.lang.StringUtils;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Installs the configured CLI versions in the background when a matching agent comes online,
+ * so the first UiPath step of a build does not wait for the CLI extraction or download.
+ */
+@Extension
+public class CliPrewarmComputerListener extends ComputerListener {
+    private static final Logger LOGGER = Logger.getLogger(CliPrewarmComputerListener.class.getName());
+    private static final ThreadPoolExecutor EXECUTOR = new ThreadPoolExecutor(
+            UiPathGlobalConfiguration.DEFAULT_CLI_PREWARM_CONCURRENCY, UiPathGlobalConfiguration.DEFAULT_CLI_PREWARM_CONCURRENCY,
+            60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+            new NamingThreadFactory(new DaemonThreadFactory(), "UiPath CLI pre-warm"));
+
+    static {
+        EXECUTOR.allowCoreThreadTimeOut(true);
+    }
+
+    @Override
+    public void onOnline(Computer computer, TaskListener listener) {
+        UiPathGlobalConfiguration globalConfiguration = UiPathGlobalConfiguration.get();
+        if (globalConfiguration == null || StringUtils.isBlank(globalConfiguration.getCliPrewarmVersions())) {
+            return;
+        }
+
+        Node node = computer.getNode();
+        if (node == null) {
+            return;
+        }
+
+        if (StringUtils.isNotBlank(globalConfiguration.getCliPrewarmLabel())) {
+            Label label = Jenkins.get().getLabel(globalConfiguration.getCliPrewarmLabel().trim());
+            if (label != null && !label.contains(node)) {
+                return;
+            }
+        }
+
+        if (!globalConfiguration.isNodeCliCache()) {
+            listener.getLogger().println("UiPath CLI pre-warm skipped, it requires the CLI cache to be shared by all workspaces of the node");
+            return;
+        }
+
+        List<String> cliVersionKeys = getCliVersionKeys(globalConfiguration.getCliPrewarmVersions(), listener);
+        if (cliVersionKeys.isEmpty()) {
+            return;
+        }
+
+        resize(globalConfiguration.getCliPrewarmConcurrency());
+        String nodeName = computer.getName();
+        listener.getLogger().println("Scheduling the UiPath CLI pre-warm of " + String.join(", ", cliVersionKeys));
+        EXECUTOR.execute(() -> prewarm(nodeName, cliVersionKeys));
+    }
+
+    private static List<String> getCliVersionKeys(@Nonnull String cliPrewarmVersions, @Nonnull TaskListener listener) {
+        List<String> cliVersionKeys = new ArrayList<>();
+        Map<String, UiPathCliConfiguration.Configuration> configurations;
+        try {
+            configurations = UiPathCliConfiguration.getInstance().getConfiguration();
+        } catch (Exception e) {
+            LOGGER.log(Level.WARNING, "Unable to load the UiPath CLI configuration", e);
+            return cliVersionKeys;
+        }
+
+        for (String cliVersionKey : cliPrewarmVersions.split("[,\\s]+")) {
+            if (StringUtils.isBlank(cliVersionKey)) {
+                continue;
+            }
+            if (configurations.containsKey(cliVersionKey)) {
+                cliVersionKeys.add(cliVersionKey);
+            } else {
+                listener.getLogger().println("UiPath CLI pre-warm ignores the unknown version " + cliVersionKey);
+            }
+        }
+        return cliVersionKeys;
+    }
+
+    private static synchronized void resize(int concurrency) {
+        if (concurrency > EXECUTOR.getMaximumPoolSize()) {
+            EXECUTOR.setMaximumPoolSize(concurrency);
+            EXECUTOR.setCorePoolSize(concurrency);
+        } else if (concurrency < EXECUTOR.getMaximumPoolSize()) {
+            EXECUTOR.setCorePoolSize(concurrency);
+            EXECUTOR.setMaximumPoolSize(concurrency);
+        }
+    }
+
+    /**
+     * Installs the CLI versions one after the other, the node may have gone offline since it was scheduled
+     */
+    private static void prewarm(@Nonnull String nodeName, @Nonnull List<String> cliVersionKeys) {
+        Jenkins jenkins = Jenkins.get();
+        Node node = nodeName.isEmpty() ? jenkins : jenkins.getNode(nodeName);
+        Computer computer = node != null ? node.toComputer() : null;
+        if (computer == null || computer.isOffline()) {
+            LOGGER.log(Level.FINE, "Skipping the UiPath CLI pre-warm of {0}, the node is offline", nodeName);
+            return;
+        }
+
+        TaskListener listener = new LogTaskListener(LOGGER, Level.FINE);
+        Utility util = new Utility();
+        for (String cliVersionKey : cliVersionKeys) {
+            long startTime = System.nanoTime();
+            try {
+                Launcher launcher = node.createLauncher(listener);
+                UiPathCliConfiguration.Configuration configuration = UiPathCliConfiguration.getInstance().getConfiguration().get(cliVersionKey);
+                if (launcher.isUnix() && configuration.getWindowsCompatible()) {
+                    continue;
+                }
+
+                EnvVars envVars = computer.getEnvironment();
+                envVars.put(EnvironmentVariablesConsts.JENKINS_HOME, jenkins.getRootDir().getAbsolutePath());
+                boolean installed = util.installCli(cliVersionKey, null, false, launcher, envVars, listener);
+                if (installed) {
+                    LOGGER.log(Level.INFO, "Pre-warmed the UiPath CLI {0} on {1} in {2} ms",
+                            new Object[]{cliVersionKey, nodeName, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime)});
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                LOGGER.log(Level.WARNING, "Failed to pre-warm the UiPath CLI " + cliVersionKey + " on " + nodeName, e);
+            }
+        }
+    }
+}
@@ -8,6 +8,7 @@ public class AnalyzeOptions extends CommonOptions {
     private String ignoredRules = "";
     private Boolean disableBuiltInNugetFeeds;
     private String governanceFilePath;
+    private String resultPath;
 
     public boolean isDisableBuiltInNugetFeeds() {
         return disableBuiltInNugetFeeds;
@@ -64,4 +65,12 @@ public class AnalyzeOptions extends CommonOptions {
     public void setGovernanceFilePath(String governanceFilePath) {
         this.governanceFilePath = governanceFilePath;
     }
+
+    public String getResultPath() {
+        return resultPath;
+    }
+
+    public void setResultPath(String resultPath) {
+        this.resultPath = resultPath;
+    }
 }
@@ -0,0 +1,274 @@
+package com.uipath.uipathpackage.util;
+
+import hudson.FilePath;
+import org.apache.commons.lang.StringUtils;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.json.JSONTokener;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Merges the workflow analysis results of several projects into a single JUnit report.
+ * A violation reported twice for the same file, e.g. by overlapping projects, is kept once.
+ */
+public final class AnalysisReport {
+    private static final String SUITE_NAME = "UiPath workflow analysis";
+
+    private final Map<String, Violation> violations = new LinkedHashMap<>();
+    private final Map<String, Long> elapsedMillisByProject = new LinkedHashMap<>();
+
+    /**
+     * Parses the result file written by the CLI analyze command, a JSON array of violations
+     *
+     * @param project    project the result belongs to
+     * @param resultJson content of the result file
+     * @return List the violations
+     */
+    public static List<Violation> parse(@Nonnull String project, @Nonnull String resultJson) throws IOException {
+        List<Violation> parsed = new ArrayList<>();
+        if (StringUtils.isBlank(resultJson)) {
+            return parsed;
+        }
+
+        try {
+            Object root = new JSONTokener(resultJson).nextValue();
+            JSONArray items = root instanceof JSONArray ? (JSONArray) root : findArray((JSONObject) root);
+            for (int i = 0; items != null && i < items.length(); i++) {
+                JSONObject item = items.optJSONObject(i);
+                if (item != null) {
+                    parsed.add(new Violation(project,
+                            get(item, "ErrorCode"),
+                            get(item, "RuleName"),
+                            get(item, "ErrorSeverity"),
+                            get(item, "FilePath"),
+                            get(item, "Description"),
+                            get(item, "Recommendation")));
+                }
+            }
+        } catch (JSONException | ClassCastException e) {
+            throw new IOException("Unable to read the workflow analysis result of " + project, e);
+        }
+        return parsed;
+    }
+
+    /**
+     * Adds the violations of a project
+     *
+     * @param project       analyzed project
+     * @param found         violations of the project
+     * @param elapsedMillis analysis duration
+     * @return List the violations not already reported by another project
+     */
+    public synchronized List<Violation> add(@Nonnull String project, @Nonnull List<Violation> found, long elapsedMillis) {
+        elapsedMillisByProject.put(project, elapsedMillis);
+        List<Violation> added = new ArrayList<>();
+        for (Violation violation : found) {
+            if (violations.putIfAbsent(violation.getKey(), violation) == null) {
+                added.add(violation);
+            }
+        }
+        return added;
+    }
+
+    /**
+     * Counts the violations failing the analysis
+     *
+     * @param treatWarningsAsErrors whether the warnings fail the analysis
+     * @return int the number of failing violations
+     */
+    public synchronized int countErrors(boolean treatWarningsAsErrors) {
+        int errors = 0;
+        for (Violation violation : violations.values()) {
+            if (violation.isError(treatWarningsAsErrors)) {
+                errors++;
+            }
+        }
+        return errors;
+    }
+
+    public synchronized int size() {
+        return violations.size();
+    }
+
+    /**
+     * Writes the JUnit report: a test case per project, failed by its failing violations,
+     * and a skipped test case per remaining violation, so the warnings are still listed by the test result page
+     *
+     * @param target                report file
+     * @param treatWarningsAsErrors whether the warnings fail the analysis
+     */
+    public synchronized void writeJUnit(@Nonnull FilePath target, boolean treatWarningsAsErrors) throws IOException, InterruptedException {
+        Map<String, List<Violation>> byProject = new LinkedHashMap<>();
+        for (String project : elapsedMillisByProject.keySet()) {
+            byProject.put(project, new ArrayList<>());
+        }
+        for (Violation violation : violations.values()) {
+            byProject.computeIfAbsent(violation.getProject(), k -> new ArrayList<>()).add(violation);
+        }
+
+        int skipped = violations.size() - countErrors(treatWarningsAsErrors);
+        int failures = 0;
+        for (List<Violation> projectViolations : byProject.values()) {
+            if (projectViolations.stream().anyMatch(violation -> violation.isError(treatWarningsAsErrors))) {
+                failures++;
+            }
+        }
+        StringWriter content = new StringWriter();
+        try {
+            XMLStreamWriter xml = XMLOutputFactory.newInstance().createXMLStreamWriter(content);
+            xml.writeStartDocument(StandardCharsets.UTF_8.name(), "1.0");
+            xml.writeStartElement("testsuite");
+            xml.writeAttribute("name", SUITE_NAME);
+            xml.writeAttribute("tests", String.valueOf(byProject.size() + skipped));
+            xml.writeAttribute("failures", String.valueOf(failures));
+            xml.writeAttribute("skipped", String.valueOf(skipped));
+
+            for (Map.Entry<String, List<Violation>> project : byProject.entrySet()) {
+                xml.writeStartElement("testcase");
+                xml.writeAttribute("classname", SUITE_NAME);
+                xml.writeAttribute("name", project.getKey());
+                xml.writeAttribute("time", String.format(Locale.ENGLISH, "%.3f", elapsedMillisByProject.getOrDefault(project.getKey(), 0L) / 1000d));
+                for (Violation violation : project.getValue()) {
+                    if (violation.isError(treatWarningsAsErrors)) {
+                        xml.writeStartElement("failure");
+                        xml.writeAttribute("type", violation.getErrorCode());
+                        xml.writeAttribute("message", violation.getSummary());
+                        xml.writeCharacters(violation.getDetails());
+                        xml.writeEndElement();
+                    }
+                }
+                xml.writeEndElement();
+
+                for (Violation violation : project.getValue()) {
+                    if (!violation.isError(treatWarningsAsErrors)) {
+                        xml.writeStartElement("testcase");
+                        xml.writeAttribute("classname", project.getKey());
+                        xml.writeAttribute("name", violation.getSummary());
+                        xml.writeStartElement("skipped");
+                        xml.writeAttribute("message", violation.getDetails());
+                        xml.writeEndElement();
+                        xml.writeEndElement();
+                    }
+                }
+            }
+
+            xml.writeEndElement();
+            xml.writeEndDocument();
+            xml.close();
+        } catch (XMLStreamException e) {
+            throw new IOException("Unable to write the workflow analysis report", e);
+        }
+
+        FilePath parent = target.getParent();
+        if (parent != null) {
+            parent.mkdirs();
+        }
+        target.write(content.toString(), StandardCharsets.UTF_8.name());
+    }
+
+    @CheckForNull
+    private static JSONArray findArray(@Nonnull JSONObject root) {
+        for (String key : root.keySet()) {
+            JSONArray array = root.optJSONArray(key);
+            if (array != null) {
+                return array;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Reads a property regardless of its casing, the CLI versions differ in their JSON naming policy
+     */
+    private static String get(@Nonnull JSONObject item, @Nonnull String name) {
+        for (String key : item.keySet()) {
+            if (key.equalsIgnoreCase(name)) {
+                return item.isNull(key) ? "" : String.valueOf(item.get(key));
+            }
+        }
+        return "";
+    }
+
+    /**
+     * A rule violation found by the workflow analyzer
+     */
+    public static final class Violation {
+        private final String project;
+        private final String errorCode;
+        private final String ruleName;
+        private final String severity;
+        private final String filePath;
+        private final String description;
+        private final String recommendation;
+
+        public Violation(@Nonnull String project, @Nonnull String errorCode, @Nonnull String ruleName, @Nonnull String severity, @Nonnull String filePath, @Nonnull String description, @Nonnull String recommendation) {
+            this.project = project;
+            this.errorCode = errorCode;
+            this.ruleName = ruleName;
+            this.severity = severity;
+            this.filePath = filePath;
+            this.description = description;
+            this.recommendation = recommendation;
+        }
+
+        public String getProject() {
+            return project;
+        }
+
+        public String getErrorCode() {
+            return errorCode;
+        }
+
+        public String getSeverity() {
+            return severity;
+        }
+
+        public boolean isError(boolean treatWarningsAsErrors) {
+            return "Error".equalsIgnoreCase(severity) || (treatWarningsAsErrors && "Warning".equalsIgnoreCase(severity));
+        }
+
+        /**
+         * Identity of the violation, the file path is resolved against the project so overlapping projects share it
+         */
+        private String getKey() {
+            String file = filePath.replace('\\', '/');
+            String projectDir = project.replace('\\', '/');
+            if (projectDir.endsWith("/project.json")) {
+                projectDir = projectDir.substring(0, projectDir.length() - "/project.json".length());
+            }
+            String absoluteFile = file.startsWith("/") || file.matches("^[A-Za-z]:/.*") ? file : projectDir + "/" + file;
+            return errorCode + "|" + absoluteFile + "|" + description;
+        }
+
+        public String getSummary() {
+            return StringUtils.isNotBlank(filePath) ? errorCode + " " + filePath : errorCode;
+        }
+
+        public String getDetails() {
+            StringBuilder details = new StringBuilder();
+            if (StringUtils.isNotBlank(ruleName)) {
+                details.append(ruleName).append(": ");
+            }
+            details.append(description);
+            if (StringUtils.isNotBlank(recommendation)) {
+                details.append(" ").append(recommendation);
+            }
+            return details.toString();
+        }
+
+        @Override
+        public String toString() {
+            return "[" + severity + "] " + getSummary() + " - " + getDetails();
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.uipath.uipathpackage.util;
+
+import hudson.FilePath;
+import hudson.Util;
+import hudson.remoting.VirtualChannel;
+import jenkins.MasterToSlaveFileCallable;
+
+import javax.annotation.Nonnull;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Completion marker of a populated cache directory.
+ * The marker is the last file written before the directory is published, its presence proves the content is complete,
+ * and it records the file count, the total size and a SHA-256 of the sorted listing of the paths and content hashes,
+ * so a file truncated or altered without changing its size is detected.
+ */
+public final class CacheDirectoryManifest {
+    public static final String MARKER_FILE_NAME = ".uipath-cache-complete";
+
+    private CacheDirectoryManifest() {
+        // Prevent instantiation
+    }
+
+    /**
+     * Checks with a single file lookup whether a cache directory was completely populated
+     *
+     * @param cacheDir cache directory
+     * @return true if the completion marker exists
+     */
+    public static boolean isComplete(@Nonnull FilePath cacheDir) throws IOException, InterruptedException {
+        return cacheDir.child(MARKER_FILE_NAME).exists();
+    }
+
+    /**
+     * Computes the manifest of a directory on its node and writes it as the completion marker
+     *
+     * @param cacheDir directory to seal
+     * @return the content checksum recorded in the manifest
+     */
+    public static String write(@Nonnull FilePath cacheDir) throws IOException, InterruptedException {
+        return cacheDir.act(new WriteManifestCallable());
+    }
+
+    /**
+     * Computes the content checksum, the same way for an extracted directory and for an archive index
+     *
+     * @param hashesByPath content hashes of the files by relative path, using '/' as separator
+     * @return the hex encoded SHA-256
+     */
+    public static String computeChecksum(@Nonnull SortedMap<String, String> hashesByPath) throws IOException {
+        MessageDigest digest = Hashes.newSha256();
+        for (Map.Entry<String, String> file : hashesByPath.entrySet()) {
+            digest.update((file.getKey() + ":" + file.getValue() + "\n").getBytes(StandardCharsets.UTF_8));
+        }
+        return Util.toHexString(digest.digest());
+    }
+
+    /**
+     * Hashes the content of a file
+     *
+     * @param input content of the file, read to the end but not closed
+     * @return the hex encoded SHA-256
+     */
+    public static String hashContent(@Nonnull InputStream input) throws IOException {
+        MessageDigest digest = Hashes.newSha256();
+        byte[] buffer = new byte[64 * 1024];
+        int read;
+        while ((read = input.read(buffer)) != -1) {
+            digest.update(buffer, 0, read);
+        }
+        return Util.toHexString(digest.digest());
+    }
+
+    private static final class WriteManifestCallable extends MasterToSlaveFileCallable<String> {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public String invoke(File dir, VirtualChannel channel) throws IOException {
+            Path root = dir.toPath();
+            List<Path> files;
+            try (Stream<Path> walk = Files.walk(root)) {
+                files = walk.filter(Files::isRegularFile).collect(Collectors.toList());
+            }
+
+            SortedMap<String, String> hashesByPath = new TreeMap<>();
+            long totalSize = 0;
+            for (Path file : files) {
+                totalSize += Files.size(file);
+                try (InputStream input = Files.newInputStream(file)) {
+                    hashesByPath.put(root.relativize(file).toString().replace('\\', '/'), hashContent(input));
+                }
+            }
+
+            String checksum = computeChecksum(hashesByPath);
+            String manifest = "files=" + files.size() + "\nbytes=" + totalSize + "\nsha256=" + checksum + "\n";
+            Files.write(root.resolve(MARKER_FILE_NAME), manifest.getBytes(StandardCharsets.UTF_8));
+            return checksum;
+        }
+    }
+}
@@ -0,0 +1,448 @@
+package com.uipath.uipathpackage.util;
+
+import hudson.AbortException;
+import hudson.FilePath;
+import hudson.Util;
+import hudson.model.TaskListener;
+import hudson.remoting.VirtualChannel;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+import jenkins.MasterToSlaveFileCallable;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import java.io.*;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Downloads a CLI package into a node directory.
+ * The package is fetched in concurrent HTTP range chunks, each chunk is retried with exponential backoff and
+ * stored as a part file next to the destination. The part files are named after the size and the ETag or Last-Modified
+ * of the file, so an interrupted download resumes from the bytes already written, unless the file changed meanwhile.
+ * The parts are assembled on the node, which also computes the SHA-512 checked against the expected one.
+ */
+public final class CliDownloader {
+    private static final int MAX_REDIRECTS = 5;
+    private static final int MAX_ATTEMPTS = 4;
+    private static final long INITIAL_BACKOFF_MILLIS = 1000;
+    private static final long MIN_CHUNK_SIZE = 4L * 1024 * 1024;
+    private static final int MAX_PARALLEL_CHUNKS = 4;
+    private static final int CONNECT_TIMEOUT_MILLIS = 30_000;
+    private static final int READ_TIMEOUT_MILLIS = 120_000;
+    private static final RestTemplate REST_TEMPLATE = createRestTemplate();
+
+    private final TaskListener listener;
+
+    public CliDownloader(@Nonnull TaskListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Downloads a file, skipping the download if the destination already matches the expected checksum
+     *
+     * @param url            url of the file
+     * @param destination    destination file
+     * @param expectedSha512 hex encoded SHA-512 of the file, or null if not known
+     * @return String hex encoded SHA-512 of the downloaded file
+     */
+    public String download(@Nonnull String url, @Nonnull FilePath destination, @CheckForNull String expectedSha512) throws IOException, InterruptedException {
+        PrintStream logger = listener.getLogger();
+        if (expectedSha512 != null && destination.exists() && expectedSha512.equalsIgnoreCase(destination.act(new Sha512Callable()))) {
+            logger.println("CLI package " + destination.getRemote() + " was already downloaded");
+            return expectedSha512;
+        }
+
+        RemoteFile remoteFile = resolve(url);
+        List<Chunk> chunks = split(remoteFile);
+        String partPrefix = destination.getName() + "." + getPartKey(remoteFile) + ".part";
+        deleteStaleParts(destination, partPrefix);
+
+        long startTime = System.nanoTime();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(chunks.size(), MAX_PARALLEL_CHUNKS),
+                new NamingThreadFactory(new DaemonThreadFactory(), "UiPath CLI download"));
+        try {
+            List<Future<Long>> futures = new ArrayList<>();
+            for (Chunk chunk : chunks) {
+                FilePath part = destination.sibling(partPrefix + chunk.index);
+                futures.add(executor.submit(() -> fetchChunk(remoteFile, chunk, part)));
+            }
+
+            long fetched = 0;
+            int fetchedChunks = 0;
+            for (Future<Long> future : futures) {
+                long bytes = ParallelTasks.await(future);
+                fetched += bytes;
+                fetchedChunks += bytes > 0 ? 1 : 0;
+            }
+            double seconds = Math.max(System.nanoTime() - startTime, 1) / 1_000_000_000d;
+            logger.println(String.format(Locale.ENGLISH, "Fetched %d of %d chunks (%d resumed), %.1f MB in %.1f s",
+                    fetchedChunks, chunks.size(), chunks.size() - fetchedChunks, fetched / (1024d * 1024d), seconds));
+        } finally {
+            executor.shutdownNow();
+        }
+
+        List<String> partNames = new ArrayList<>();
+        for (Chunk chunk : chunks) {
+            partNames.add(partPrefix + chunk.index);
+        }
+        String actualSha512 = destination.act(new AssembleCallable(partNames));
+
+        if (expectedSha512 == null) {
+            logger.println("No checksum is recorded for this CLI package, SHA-512 of the download is " + actualSha512);
+        } else if (!expectedSha512.equalsIgnoreCase(actualSha512)) {
+            destination.delete();
+            throw new AbortException("The downloaded CLI package does not match the expected SHA-512, expected " + expectedSha512 + " but was " + actualSha512);
+        }
+        return actualSha512;
+    }
+
+    /**
+     * Identifies the content of the file, so the parts of a previous download are only reused for the same content.
+     * A file without validator cannot be told apart from a changed one, it is never resumed.
+     */
+    private static String getPartKey(@Nonnull RemoteFile remoteFile) throws IOException {
+        if (!remoteFile.isResumable()) {
+            return "new" + System.currentTimeMillis();
+        }
+        return Hashes.combine(String.valueOf(remoteFile.length), remoteFile.validator).substring(0, 16);
+    }
+
+    /**
+     * Deletes the parts of a previous download of another content
+     */
+    private static void deleteStaleParts(@Nonnull FilePath destination, @Nonnull String partPrefix) throws IOException, InterruptedException {
+        FilePath directory = destination.getParent();
+        if (directory == null || !directory.exists()) {
+            return;
+        }
+        for (FilePath part : directory.list(destination.getName() + ".*.part*")) {
+            if (!part.getName().startsWith(partPrefix)) {
+                part.delete();
+            }
+        }
+    }
+
+    /**
+     * Resolves the redirects and the size of the file, a server that does not answer HEAD is downloaded in one chunk
+     */
+    private RemoteFile resolve(@Nonnull String url) throws IOException, InterruptedException {
+        try {
+            return retry("resolving " + url, () -> exchange(url, HttpMethod.HEAD, null, null, (location, response) -> {
+                HttpHeaders headers = response.getHeaders();
+                boolean acceptsRanges = "bytes".equalsIgnoreCase(headers.getFirst(HttpHeaders.ACCEPT_RANGES));
+                // a weak ETag cannot validate a range request, the Last-Modified date is used instead
+                String validator = headers.getETag();
+                if (validator == null || validator.startsWith("W/")) {
+                    validator = headers.getFirst(HttpHeaders.LAST_MODIFIED);
+                }
+                return new RemoteFile(location, headers.getContentLength(), acceptsRanges, validator);
+            }));
+        } catch (IOException e) {
+            listener.getLogger().println("Unable to query the size of " + url + ", downloading it in one chunk. " + e.getMessage());
+            return new RemoteFile(url, -1, false, null);
+        }
+    }
+
+    private static List<Chunk> split(@Nonnull RemoteFile remoteFile) {
+        if (!remoteFile.isSplittable()) {
+            return Collections.singletonList(new Chunk(0, 0, remoteFile.length - 1));
+        }
+
+        int count = (int) Math.min(MAX_PARALLEL_CHUNKS, remoteFile.length / MIN_CHUNK_SIZE);
+        long chunkSize = (remoteFile.length + count - 1) / count;
+        List<Chunk> chunks = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            long start = i * chunkSize;
+            chunks.add(new Chunk(i, start, Math.min(start + chunkSize, remoteFile.length) - 1));
+        }
+        return chunks;
+    }
+
+    /**
+     * Fetches a chunk into its part file, unless a previous download already completed it.
+     * The bytes already written by an interrupted attempt are kept and only the rest of the chunk is requested.
+     *
+     * @return the number of bytes fetched
+     */
+    private long fetchChunk(@Nonnull RemoteFile remoteFile, @Nonnull Chunk chunk, @Nonnull FilePath part) throws IOException, InterruptedException {
+        long expectedSize = chunk.end - chunk.start + 1;
+        if (remoteFile.isResumable() && part.exists() && part.length() == expectedSize) {
+            return 0;
+        }
+
+        FilePath partial = part.sibling(part.getName() + ".tmp");
+        FilePath remainder = part.sibling(part.getName() + ".rest");
+        boolean ranged = remoteFile.isSplittable();
+        long[] fetched = new long[1];
+        retry("fetching chunk " + chunk.index, () -> {
+            long offset = remoteFile.isResumable() && partial.exists() ? partial.length() : 0;
+            if (offset >= expectedSize) {
+                offset = 0;
+            }
+            long resumedFrom = offset;
+            String range = ranged ? "bytes=" + (chunk.start + offset) + "-" + chunk.end : null;
+            String ifRange = ranged ? remoteFile.validator : null;
+            return exchange(remoteFile.url, HttpMethod.GET, range, ifRange, (location, response) -> {
+                if (ranged && response.getRawStatusCode() != HttpStatus.PARTIAL_CONTENT.value()) {
+                    throw new IOException("The server ignored the range request or the file changed, status " + response.getRawStatusCode());
+                }
+                try {
+                    if (resumedFrom == 0) {
+                        partial.copyFrom(response.getBody());
+                    } else {
+                        remainder.copyFrom(response.getBody());
+                        partial.act(new AppendCallable(remainder.getName()));
+                    }
+                    fetched[0] += partial.length() - resumedFrom;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("interrupted while writing chunk " + chunk.index);
+                }
+                return null;
+            });
+        });
+
+        long size = partial.length();
+        if (remoteFile.length >= 0 && size != expectedSize) {
+            partial.delete();
+            throw new IOException("Chunk " + chunk.index + " is incomplete, expected " + expectedSize + " bytes but got " + size);
+        }
+        partial.renameTo(part);
+        return fetched[0];
+    }
+
+    /**
+     * Executes a request, following a bounded number of redirects
+     */
+    private static <T> T exchange(@Nonnull String url, @Nonnull HttpMethod method, @CheckForNull String range, @CheckForNull String ifRange,
+                                  @Nonnull ResponseHandler<T> handler) throws IOException {
+        String location = url;
+        for (int redirects = 0; redirects <= MAX_REDIRECTS; redirects++) {
+            String requestUrl = location;
+            try {
+                RedirectOrResult<T> result = REST_TEMPLATE.execute(requestUrl, method, request -> {
+                    request.getHeaders().setAccept(Arrays.asList(MediaType.APPLICATION_OCTET_STREAM, MediaType.ALL));
+                    if (range != null) {
+                        request.getHeaders().set(HttpHeaders.RANGE, range);
+                    }
+                    if (ifRange != null) {
+                        request.getHeaders().set(HttpHeaders.IF_RANGE, ifRange);
+                    }
+                }, response -> {
+                    if (response.getStatusCode().is3xxRedirection()) {
+                        URI target = response.getHeaders().getLocation();
+                        if (target == null) {
+                            throw new IOException("Redirect without location from " + requestUrl);
+                        }
+                        return new RedirectOrResult<>(URI.create(requestUrl).resolve(target).toString(), null);
+                    }
+                    return new RedirectOrResult<>(null, handler.handle(requestUrl, response));
+                });
+                if (result == null || result.redirect == null) {
+                    return result == null ? null : result.result;
+                }
+                location = result.redirect;
+            } catch (RestClientException e) {
+                throw new RequestException(e);
+            }
+        }
+        throw new IOException("Too many redirects while downloading " + url);
+    }
+
+    private <T> T retry(@Nonnull String operation, @Nonnull Attempt<T> attempt) throws IOException, InterruptedException {
+        long backoff = INITIAL_BACKOFF_MILLIS;
+        for (int i = 1; ; i++) {
+            try {
+                return attempt.run();
+            } catch (IOException e) {
+                if (Thread.interrupted()) {
+                    throw new InterruptedException("interrupted while " + operation);
+                }
+                if (i >= MAX_ATTEMPTS || !isRetryable(e)) {
+                    throw e;
+                }
+                listener.getLogger().println("Failed " + operation + " (attempt " + i + "/" + MAX_ATTEMPTS + "): " + e.getMessage() + ", retrying in " + backoff + " ms");
+                Thread.sleep(backoff);
+                backoff *= 2;
+            }
+        }
+    }
+
+    private static boolean isRetryable(@Nonnull IOException e) {
+        if (e.getCause() instanceof HttpStatusCodeException) {
+            int status = ((HttpStatusCodeException) e.getCause()).getRawStatusCode();
+            return status >= 500 || status == 408 || status == 429;
+        }
+        return true;
+    }
+
+    private static RestTemplate createRestTemplate() {
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory() {
+            @Override
+            protected void prepareConnection(HttpURLConnection connection, String httpMethod) throws IOException {
+                super.prepareConnection(connection, httpMethod);
+                // redirects are followed explicitly, for every method and up to a bound
+                connection.setInstanceFollowRedirects(false);
+            }
+        };
+        requestFactory.setConnectTimeout(CONNECT_TIMEOUT_MILLIS);
+        requestFactory.setReadTimeout(READ_TIMEOUT_MILLIS);
+        requestFactory.setBufferRequestBody(false);
+        return new RestTemplate(requestFactory);
+    }
+
+    private interface ResponseHandler<T> {
+        T handle(@Nonnull String location, @Nonnull ClientHttpResponse response) throws IOException;
+    }
+
+    private interface Attempt<T> {
+        T run() throws IOException, InterruptedException;
+    }
+
+    private static final class RedirectOrResult<T> {
+        private final String redirect;
+        private final T result;
+
+        private RedirectOrResult(@CheckForNull String redirect, @CheckForNull T result) {
+            this.redirect = redirect;
+            this.result = result;
+        }
+    }
+
+    /**
+     * Carries a failed HTTP exchange, so it is retried like any other I/O failure
+     */
+    private static final class RequestException extends IOException {
+        private RequestException(@Nonnull RestClientException cause) {
+            super(cause.getMessage(), cause);
+        }
+    }
+
+    private static final class RemoteFile {
+        private final String url;
+        private final long length;
+        private final boolean acceptsRanges;
+        // ETag or Last-Modified date identifying the content
+        private final String validator;
+
+        private RemoteFile(@Nonnull String url, long length, boolean acceptsRanges, @CheckForNull String validator) {
+            this.url = url;
+            this.length = length;
+            this.acceptsRanges = acceptsRanges;
+            this.validator = validator;
+        }
+
+        private boolean isSplittable() {
+            return acceptsRanges && length >= 2 * MIN_CHUNK_SIZE;
+        }
+
+        private boolean isResumable() {
+            return isSplittable() && validator != null;
+        }
+    }
+
+    private static final class Chunk {
+        private final int index;
+        private final long start;
+        private final long end;
+
+        private Chunk(int index, long start, long end) {
+            this.index = index;
+            this.start = start;
+            this.end = end;
+        }
+    }
+
+    private static MessageDigest newSha512() throws IOException {
+        try {
+            return MessageDigest.getInstance("SHA-512");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * Concatenates the part files into the destination, computing its SHA-512, then deletes the parts
+     */
+    private static final class AssembleCallable extends MasterToSlaveFileCallable<String> {
+        private static final long serialVersionUID = 1L;
+        private final List<String> partNames;
+
+        private AssembleCallable(@Nonnull List<String> partNames) {
+            this.partNames = new ArrayList<>(partNames);
+        }
+
+        @Override
+        public String invoke(File destination, VirtualChannel channel) throws IOException {
+            File directory = destination.getParentFile();
+            File assembling = new File(directory, destination.getName() + ".tmp");
+            MessageDigest digest = newSha512();
+            try (OutputStream out = new DigestOutputStream(new BufferedOutputStream(new FileOutputStream(assembling)), digest)) {
+                for (String partName : partNames) {
+                    Files.copy(new File(directory, partName).toPath(), out);
+                }
+            }
+            Files.move(assembling.toPath(), destination.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            for (String partName : partNames) {
+                Files.deleteIfExists(new File(directory, partName).toPath());
+            }
+            return Util.toHexString(digest.digest());
+        }
+    }
+
+    /**
+     * Appends a sibling file to a part file, then deletes it
+     */
+    private static final class AppendCallable extends MasterToSlaveFileCallable<Void> {
+        private static final long serialVersionUID = 1L;
+        private final String remainderName;
+
+        private AppendCallable(@Nonnull String remainderName) {
+            this.remainderName = remainderName;
+        }
+
+        @Override
+        public Void invoke(File partial, VirtualChannel channel) throws IOException {
+            File remainder = new File(partial.getParentFile(), remainderName);
+            try (OutputStream out = new BufferedOutputStream(new FileOutputStream(partial, true))) {
+                Files.copy(remainder.toPath(), out);
+            }
+            Files.delete(remainder.toPath());
+            return null;
+        }
+    }
+
+    private static final class Sha512Callable extends MasterToSlaveFileCallable<String> {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public String invoke(File file, VirtualChannel channel) throws IOException {
+            MessageDigest digest = newSha512();
+            try (InputStream in = new BufferedInputStream(new FileInputStream(file))) {
+                byte[] buffer = new byte[64 * 1024];
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    digest.update(buffer, 0, read);
+                }
+            }
+            return Util.toHexString(digest.digest());
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package com.uipath.uipathpackage.util;
+
+import com.google.common.util.concurrent.Striped;
+import com.uipath.uipathpackage.configuration.UiPathCliConfiguration;
+import com.uipath.uipathpackage.configuration.UiPathGlobalConfiguration;
+import hudson.FilePath;
+import hudson.model.TaskListener;
+import jenkins.model.Jenkins;
+import org.apache.commons.lang.StringUtils;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Controller-side mirror of the CLI packages.
+ * The first install of a version downloads the package once, from the public feed or the configured internal mirror,
+ * into a content-addressed store under JENKINS_HOME, later installs on any node copy it from the controller.
+ * The store is evicted least recently used first once it grows over its size limit.
+ */
+public final class CliMirror {
+    private static final Logger LOGGER = Logger.getLogger(CliMirror.class.getName());
+    private static final String OBJECT_EXTENSION = ".nupkg";
+    private static final Striped<Lock> VERSION_LOCKS = Striped.lazyWeakLock(16);
+    // copies hold the read lock, so the eviction never deletes a package being sent to a node
+    private static final ReadWriteLock STORE_LOCK = new ReentrantReadWriteLock();
+    private static final ConcurrentMap<String, Statistics> STATISTICS = new ConcurrentHashMap<>();
+
+    private CliMirror() {
+        // Prevent instantiation
+    }
+
+    /**
+     * Copies a CLI package from the mirror to a node, populating the mirror on a miss
+     *
+     * @param configuration CLI configuration
+     * @param destination   destination of the package on the node
+     * @param listener      task listener
+     */
+    public static void fetch(@Nonnull UiPathCliConfiguration.Configuration configuration, @Nonnull FilePath destination, @Nonnull TaskListener listener) throws IOException, InterruptedException {
+        String versionKey = configuration.getName() + "/" + configuration.getVersion().getComplete();
+        Statistics statistics = STATISTICS.computeIfAbsent(versionKey, k -> new Statistics());
+        File storeDir = getStoreDirectory();
+
+        boolean logged = false;
+        while (true) {
+            File object;
+            boolean populated = false;
+            Lock versionLock = VERSION_LOCKS.get(versionKey);
+            versionLock.lockInterruptibly();
+            try {
+                object = findObject(storeDir, configuration);
+                if (object != null) {
+                    statistics.hits.increment();
+                    // the modification time is the recency used by the eviction
+                    if (!object.setLastModified(System.currentTimeMillis())) {
+                        LOGGER.log(Level.FINE, "Unable to touch {0}", object);
+                    }
+                } else {
+                    statistics.misses.increment();
+                    object = populate(storeDir, configuration, listener);
+                    populated = true;
+                }
+            } finally {
+                versionLock.unlock();
+            }
+            if (populated) {
+                evict(storeDir, object);
+            }
+
+            if (!logged) {
+                listener.getLogger().println("UiPath CLI mirror " + versionKey + ": " + statistics.getHits() + " hits, " + statistics.getMisses() + " misses");
+                logged = true;
+            }
+
+            STORE_LOCK.readLock().lockInterruptibly();
+            try {
+                // the package may have been evicted between the lookup and the read lock, it is then fetched again
+                if (object.isFile()) {
+                    destination.copyFrom(new FilePath(object));
+                    return;
+                }
+            } finally {
+                STORE_LOCK.readLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Url the CLI package is downloaded from, the configured internal mirror if any, else the public feed.
+     * An internal mirror is expected to follow the NuGet flat container layout.
+     *
+     * @param configuration CLI configuration
+     * @return String the package url
+     */
+    public static String getSourceUrl(@Nonnull UiPathCliConfiguration.Configuration configuration) {
+        UiPathGlobalConfiguration globalConfiguration = UiPathGlobalConfiguration.get();
+        if (globalConfiguration == null || StringUtils.isBlank(globalConfiguration.getCliMirrorUrl())) {
+            return configuration.getFeedUrl();
+        }
+
+        String baseUrl = StringUtils.removeEnd(globalConfiguration.getCliMirrorUrl().trim(), "/");
+        String id = configuration.getName().toLowerCase(Locale.ENGLISH);
+        String version = configuration.getVersion().getComplete().toLowerCase(Locale.ENGLISH);
+        return baseUrl + "/" + id + "/" + version + "/" + id + "." + version + OBJECT_EXTENSION;
+    }
+
+    /**
+     * Gets the hit and miss counters of the mirror, by CLI name and version
+     *
+     * @return Map the counters
+     */
+    public static Map<String, Statistics> getStatistics() {
+        return Collections.unmodifiableMap(new TreeMap<>(STATISTICS));
+    }
+
+    private static File getStoreDirectory() throws IOException {
+        File storeDir = new File(Jenkins.get().getRootDir(), "caches/uipath-cli/mirror");
+        File refsDir = new File(storeDir, "refs");
+        if (!refsDir.isDirectory() && !refsDir.mkdirs()) {
+            throw new IOException("Unable to create the directory " + refsDir);
+        }
+        return storeDir;
+    }
+
+    private static File getRefFile(@Nonnull File storeDir, @Nonnull UiPathCliConfiguration.Configuration configuration) {
+        return new File(new File(storeDir, "refs"), configuration.getName() + "." + configuration.getVersion().getComplete());
+    }
+
+    @CheckForNull
+    private static File findObject(@Nonnull File storeDir, @Nonnull UiPathCliConfiguration.Configuration configuration) throws IOException {
+        File refFile = getRefFile(storeDir, configuration);
+        if (!refFile.isFile()) {
+            return null;
+        }
+
+        String sha512 = new String(Files.readAllBytes(refFile.toPath()), StandardCharsets.UTF_8).trim();
+        File object = new File(storeDir, sha512 + OBJECT_EXTENSION);
+        return object.isFile() ? object : null;
+    }
+
+    private static File populate(@Nonnull File storeDir, @Nonnull UiPathCliConfiguration.Configuration configuration, @Nonnull TaskListener listener) throws IOException, InterruptedException {
+        String sourceUrl = getSourceUrl(configuration);
+        listener.getLogger().println("UiPath CLI mirror miss, downloading " + sourceUrl + " to the controller");
+
+        // a stable name lets an interrupted download resume from its completed chunks
+        File downloading = new File(storeDir, configuration.getName() + "." + configuration.getVersion().getComplete() + ".download");
+        String sha512 = new CliDownloader(listener).download(sourceUrl, new FilePath(downloading), configuration.getSha512());
+
+        File object = new File(storeDir, sha512.toLowerCase(Locale.ENGLISH) + OBJECT_EXTENSION);
+        Files.move(downloading.toPath(), object.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        File refFile = getRefFile(storeDir, configuration);
+        File writingRef = new File(refFile.getPath() + ".tmp");
+        Files.write(writingRef.toPath(), sha512.toLowerCase(Locale.ENGLISH).getBytes(StandardCharsets.UTF_8));
+        Files.move(writingRef.toPath(), refFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return object;
+    }
+
+    /**
+     * Deletes the least recently used packages until the store fits its size limit, skipped while a copy is running
+     */
+    private static void evict(@Nonnull File storeDir, @Nonnull File keep) {
+        UiPathGlobalConfiguration globalConfiguration = UiPathGlobalConfiguration.get();
+        long maxBytes = (globalConfiguration != null ? globalConfiguration.getCliMirrorMaxSize() : UiPathGlobalConfiguration.DEFAULT_CLI_MIRROR_MAX_SIZE) * 1024L * 1024L;
+        File[] objects = storeDir.listFiles((dir, name) -> name.endsWith(OBJECT_EXTENSION));
+        if (objects == null || !STORE_LOCK.writeLock().tryLock()) {
+            return;
+        }
+
+        try {
+            long totalSize = 0;
+            for (File object : objects) {
+                totalSize += object.length();
+            }
+
+            Arrays.sort(objects, Comparator.comparingLong(File::lastModified));
+            for (File object : objects) {
+                if (totalSize <= maxBytes) {
+                    break;
+                }
+                if (object.equals(keep)) {
+                    continue;
+                }
+
+                long size = object.length();
+                try {
+                    Files.deleteIfExists(object.toPath());
+                    totalSize -= size;
+                    LOGGER.log(Level.INFO, "Evicted {0} from the UiPath CLI mirror", object.getName());
+                } catch (IOException e) {
+                    LOGGER.log(Level.WARNING, "Failed to evict " + object + " from the UiPath CLI mirror", e);
+                }
+            }
+        } finally {
+            STORE_LOCK.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Hit and miss counters of a CLI version
+     */
+    public static final class Statistics {
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+
+        public long getHits() {
+            return hits.sum();
+        }
+
+        public long getMisses() {
+            return misses.sum();
+        }
+    }
+}
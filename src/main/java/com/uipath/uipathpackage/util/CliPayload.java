@@ -0,0 +1,217 @@
+package com.uipath.uipathpackage.util;
+
+import hudson.init.InitMilestone;
+import hudson.init.Initializer;
+import jenkins.model.Jenkins;
+import org.apache.commons.io.IOUtils;
+
+import javax.annotation.Nonnull;
+import java.io.*;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.CodeSource;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Index of the CLI payload bundled in the plugin jar, built once and reused by every extraction and integrity check.
+ * The payload is repacked once into a single archive under JENKINS_HOME/caches, which is then streamed to the agents.
+ */
+public final class CliPayload {
+    private static final Logger LOGGER = Logger.getLogger(CliPayload.class.getName());
+    private static final String ARCHIVE_PREFIX = "payload-";
+    private static final ConcurrentMap<String, CliPayload> PAYLOADS = new ConcurrentHashMap<>();
+
+    private final File jarFile;
+    private final List<String> entryNames;
+    private final SortedMap<String, String> hashesByPath;
+    private final long totalSize;
+    private final String checksum;
+    private File archive;
+
+    private CliPayload(@Nonnull File jarFile) throws IOException {
+        this.jarFile = jarFile;
+        List<String> names = new ArrayList<>();
+        SortedMap<String, String> hashes = new TreeMap<>();
+        long size = 0;
+        try (JarFile jar = new JarFile(jarFile)) {
+            Enumeration<JarEntry> entries = jar.entries();
+            while (entries.hasMoreElements()) {
+                JarEntry entry = entries.nextElement();
+                String relativePath = getPathWithoutRootFolder(entry.getName());
+                if (relativePath == null) {
+                    continue;
+                }
+
+                names.add(entry.getName());
+                if (!entry.isDirectory()) {
+                    try (InputStream entryStream = jar.getInputStream(entry)) {
+                        hashes.put(relativePath, CacheDirectoryManifest.hashContent(entryStream));
+                    }
+                    size += entry.getSize();
+                }
+            }
+        }
+        this.entryNames = Collections.unmodifiableList(names);
+        this.hashesByPath = Collections.unmodifiableSortedMap(hashes);
+        this.totalSize = size;
+        this.checksum = CacheDirectoryManifest.computeChecksum(hashes);
+    }
+
+    /**
+     * Gets the index of the CLI payload of a plugin jar, the jar is only read the first time
+     *
+     * @param jarFile plugin jar
+     * @return CliPayload the payload index
+     */
+    public static CliPayload forJar(@Nonnull File jarFile) throws IOException {
+        String key = jarFile.getAbsolutePath() + "|" + jarFile.length() + "|" + jarFile.lastModified();
+        try {
+            return PAYLOADS.computeIfAbsent(key, k -> {
+                try {
+                    return new CliPayload(jarFile);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Indexes the payload of the running plugin at startup, so the first extraction does not scan the jar
+     */
+    @Initializer(after = InitMilestone.PLUGINS_STARTED)
+    public static void indexBundledPayload() {
+        try {
+            CodeSource codeSource = CliPayload.class.getProtectionDomain().getCodeSource();
+            if (codeSource == null) {
+                return;
+            }
+
+            File jar = new File(codeSource.getLocation().toURI());
+            // an exploded classes directory is used during development, there is nothing to index
+            if (jar.isFile()) {
+                CliPayload payload = forJar(jar);
+                LOGGER.log(Level.FINE, "Indexed {0} UiPath CLI files ({1} bytes) from {2}", new Object[]{payload.getFileCount(), payload.getTotalSize(), jar});
+            }
+        } catch (IOException | URISyntaxException | RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Failed to index the bundled UiPath CLI, it will be indexed on first use", e);
+        }
+    }
+
+    public int getFileCount() {
+        return hashesByPath.size();
+    }
+
+    public long getTotalSize() {
+        return totalSize;
+    }
+
+    /**
+     * Content checksum of the payload, equal to the one recorded in the manifest of a complete extraction
+     *
+     * @return String checksum
+     */
+    public String getChecksum() {
+        return checksum;
+    }
+
+    /**
+     * Gets the payload repacked as a single archive, packing it on first use only
+     *
+     * @return File the archive on the controller
+     */
+    public synchronized File getArchive() throws IOException {
+        if (archive != null && archive.isFile()) {
+            return archive;
+        }
+
+        File cacheDir = new File(Jenkins.get().getRootDir(), "caches/uipath-cli");
+        if (!cacheDir.isDirectory() && !cacheDir.mkdirs()) {
+            throw new IOException("Unable to create the directory " + cacheDir);
+        }
+
+        String archiveName = ARCHIVE_PREFIX + checksum.substring(0, 16) + ".zip";
+        File target = new File(cacheDir, archiveName);
+        if (!target.isFile()) {
+            File packing = File.createTempFile(ARCHIVE_PREFIX, ".tmp", cacheDir);
+            try {
+                pack(packing);
+                Files.move(packing.toPath(), target.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(packing.toPath());
+            }
+            deleteOtherArchives(cacheDir, archiveName);
+        }
+
+        archive = target;
+        return archive;
+    }
+
+    private void pack(@Nonnull File destination) throws IOException {
+        try (JarFile jar = new JarFile(jarFile);
+             ZipOutputStream payload = new ZipOutputStream(new BufferedOutputStream(new FileOutputStream(destination)))) {
+            // the jar content is already compressed, favour speed
+            payload.setLevel(Deflater.BEST_SPEED);
+            for (String entryName : entryNames) {
+                JarEntry entry = jar.getJarEntry(entryName);
+                String relativePath = getPathWithoutRootFolder(entryName);
+                if (entry.isDirectory()) {
+                    payload.putNextEntry(new ZipEntry(relativePath + "/"));
+                } else {
+                    payload.putNextEntry(new ZipEntry(relativePath));
+                    try (InputStream entryStream = jar.getInputStream(entry)) {
+                        IOUtils.copy(entryStream, payload);
+                    }
+                }
+                payload.closeEntry();
+            }
+        }
+    }
+
+    private static void deleteOtherArchives(@Nonnull File cacheDir, @Nonnull String currentArchiveName) {
+        File[] archives = cacheDir.listFiles((dir, name) -> name.startsWith(ARCHIVE_PREFIX) && !name.equals(currentArchiveName));
+        if (archives == null) {
+            return;
+        }
+        for (File outdated : archives) {
+            try {
+                Files.deleteIfExists(outdated.toPath());
+            } catch (IOException e) {
+                LOGGER.log(Level.FINE, "Failed to delete the outdated UiPath CLI archive " + outdated, e);
+            }
+        }
+    }
+
+    /**
+     * Strips the cli-&lt;version&gt; root folder of a jar entry name
+     *
+     * @return the relative path, or null if the entry is not part of the CLI payload
+     */
+    private static String getPathWithoutRootFolder(@Nonnull String entryName) {
+        if (!entryName.startsWith("cli")) {
+            return null;
+        }
+
+        String name = entryName.replace('\\', '/');
+        if (name.endsWith("/")) {
+            name = name.substring(0, name.length() - 1);
+        }
+        int separator = name.indexOf('/');
+        if (separator < 0 || separator == name.length() - 1) {
+            return null;
+        }
+        return name.substring(separator + 1);
+    }
+}
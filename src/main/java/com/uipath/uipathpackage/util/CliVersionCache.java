@@ -0,0 +1,57 @@
+package com.uipath.uipathpackage.util;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import hudson.FilePath;
+import hudson.remoting.VirtualChannel;
+import jenkins.MasterToSlaveFileCallable;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Controller-side cache of the versions reported by the extracted CLIs.
+ * An extracted CLI never changes, so {@code uipcli --version} only has to run once per node, CLI path and file fingerprint.
+ */
+public final class CliVersionCache {
+    private static final Cache<String, ActualVersion> VERSIONS = Caffeine.newBuilder().maximumSize(1000).build();
+
+    private CliVersionCache() {
+        // Prevent instantiation
+    }
+
+    /**
+     * Builds the cache key of a CLI, the fingerprint (size and timestamp) is computed on the agent in a single round trip.
+     *
+     * @param nodeName name of the node hosting the CLI
+     * @param cliPath  path to the CLI entry point
+     * @return the cache key
+     */
+    public static String getKey(@Nonnull String nodeName, @Nonnull FilePath cliPath) throws IOException, InterruptedException {
+        return nodeName + "|" + cliPath.getRemote() + "|" + cliPath.act(new FingerprintCallable());
+    }
+
+    @CheckForNull
+    public static ActualVersion get(@Nonnull String key) {
+        return VERSIONS.getIfPresent(key);
+    }
+
+    public static void put(@Nonnull String key, @Nonnull ActualVersion actualVersion) {
+        // do not remember failed probes, the next step should retry them
+        if (actualVersion.getMajor() < 0) {
+            return;
+        }
+        VERSIONS.put(key, actualVersion);
+    }
+
+    private static final class FingerprintCallable extends MasterToSlaveFileCallable<String> {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public String invoke(File f, VirtualChannel channel) {
+            return f.length() + ":" + f.lastModified();
+        }
+    }
+}
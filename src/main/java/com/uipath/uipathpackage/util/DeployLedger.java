@@ -0,0 +1,230 @@
+package com.uipath.uipathpackage.util;
+
+import hudson.FilePath;
+import hudson.Util;
+import hudson.remoting.VirtualChannel;
+import jenkins.MasterToSlaveFileCallable;
+import jenkins.model.Jenkins;
+import org.w3c.dom.Document;
+import org.w3c.dom.NodeList;
+import org.xml.sax.SAXException;
+
+import javax.annotation.Nonnull;
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.DigestInputStream;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Records the package versions deployed by the controller, by Orchestrator, tenant, folder and package id,
+ * so a deploy of the version, content and settings a folder already has can be skipped.
+ * Each deploy replaces the entry of its package id, so after a rollback to an earlier version the entry of the later version
+ * no longer matches and the earlier version is deployed again.
+ * An entry expires after a day, after which the package is deployed again, e.g. to restore a process edited in Orchestrator.
+ */
+public final class DeployLedger {
+    private static final long DEPLOYED_RETENTION_MILLIS = TimeUnit.DAYS.toMillis(1);
+
+    private DeployLedger() {
+        // Prevent instantiation
+    }
+
+    /**
+     * Lists the packages to deploy, with their id, version and hash read on the node
+     *
+     * @param packagePath package file or folder of packages
+     * @return List the packages
+     */
+    public static List<LocalPackage> listPackages(@Nonnull FilePath packagePath) throws IOException, InterruptedException {
+        return packagePath.act(new ListPackagesCallable());
+    }
+
+    /**
+     * Builds the ledger key of a package id deployed to a folder
+     *
+     * @param orchestratorUrl Orchestrator address
+     * @param tenant          Orchestrator tenant
+     * @param folder          Orchestrator folder
+     * @param localPackage    deployed package
+     * @return String the key
+     */
+    public static String getKey(@Nonnull String orchestratorUrl, @Nonnull String tenant, @Nonnull String folder, @Nonnull LocalPackage localPackage) throws IOException {
+        return Hashes.combine(Util.removeTrailingSlash(orchestratorUrl.trim()).toLowerCase(), tenant.toLowerCase(), folder, localPackage.getId().toLowerCase());
+    }
+
+    /**
+     * Whether the last deploy of the package id to the folder, in the last day, was the same version and content with the same settings
+     *
+     * @param key                 ledger key
+     * @param localPackage        package to deploy
+     * @param settingsFingerprint deploy settings creating or updating the processes
+     * @return boolean true if the deploy can be skipped
+     */
+    public static boolean isDeployed(@Nonnull String key, @Nonnull LocalPackage localPackage, @Nonnull String settingsFingerprint) throws IOException {
+        File entry = getEntryFile(key);
+        if (!entry.isFile() || entry.lastModified() < System.currentTimeMillis() - DEPLOYED_RETENTION_MILLIS) {
+            return false;
+        }
+        return getEntry(localPackage, settingsFingerprint).equals(new String(Files.readAllBytes(entry.toPath()), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Records a deployed package, replacing the previous version deployed to the folder
+     *
+     * @param key                 ledger key
+     * @param localPackage        deployed package
+     * @param settingsFingerprint deploy settings creating or updating the processes
+     */
+    public static void markDeployed(@Nonnull String key, @Nonnull LocalPackage localPackage, @Nonnull String settingsFingerprint) throws IOException {
+        File entry = getEntryFile(key);
+        File parentDir = entry.getParentFile();
+        if (!parentDir.isDirectory() && !parentDir.mkdirs()) {
+            throw new IOException("Unable to create the directory " + parentDir);
+        }
+        Files.write(entry.toPath(), getEntry(localPackage, settingsFingerprint).getBytes(StandardCharsets.UTF_8));
+        pruneExpired(parentDir);
+    }
+
+    private static String getEntry(@Nonnull LocalPackage localPackage, @Nonnull String settingsFingerprint) {
+        return localPackage.getVersion().toLowerCase() + "|" + localPackage.getSha256() + "|" + settingsFingerprint;
+    }
+
+    private static void pruneExpired(@Nonnull File ledgerDir) {
+        long oldest = System.currentTimeMillis() - DEPLOYED_RETENTION_MILLIS;
+        File[] entries = ledgerDir.listFiles(file -> file.lastModified() < oldest);
+        if (entries == null) {
+            return;
+        }
+        for (File entry : entries) {
+            try {
+                Files.deleteIfExists(entry.toPath());
+            } catch (IOException e) {
+                // retried by the next deploy
+            }
+        }
+    }
+
+    private static File getEntryFile(@Nonnull String key) {
+        return new File(Jenkins.get().getRootDir(), "caches/uipath-deploy/" + key);
+    }
+
+    /**
+     * A package of the package path
+     */
+    public static final class LocalPackage implements Serializable {
+        private static final long serialVersionUID = 1L;
+        private final String fileName;
+        private final String id;
+        private final String version;
+        private final String sha256;
+
+        private LocalPackage(@Nonnull String fileName, @Nonnull String id, @Nonnull String version, @Nonnull String sha256) {
+            this.fileName = fileName;
+            this.id = id;
+            this.version = version;
+            this.sha256 = sha256;
+        }
+
+        public String getFileName() {
+            return fileName;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public String getVersion() {
+            return version;
+        }
+
+        public String getSha256() {
+            return sha256;
+        }
+
+        @Override
+        public String toString() {
+            return id + " " + version;
+        }
+    }
+
+    /**
+     * Reads the id and version of the nuspec of each package and hashes its content
+     */
+    private static final class ListPackagesCallable extends MasterToSlaveFileCallable<List<LocalPackage>> {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public List<LocalPackage> invoke(File packagePath, VirtualChannel channel) throws IOException {
+            File[] files = packagePath.isDirectory()
+                    ? packagePath.listFiles((dir, name) -> name.toLowerCase().endsWith(".nupkg"))
+                    : new File[]{packagePath};
+            List<LocalPackage> packages = new ArrayList<>();
+            if (files == null) {
+                return packages;
+            }
+            for (File file : files) {
+                if (file.isFile()) {
+                    packages.add(readPackage(file));
+                }
+            }
+            return packages;
+        }
+
+        private static LocalPackage readPackage(@Nonnull File file) throws IOException {
+            String id = null;
+            String version = null;
+            try (ZipFile zip = new ZipFile(file)) {
+                Enumeration<? extends ZipEntry> entries = zip.entries();
+                while (entries.hasMoreElements()) {
+                    ZipEntry entry = entries.nextElement();
+                    if (entry.getName().indexOf('/') < 0 && entry.getName().toLowerCase().endsWith(".nuspec")) {
+                        try (InputStream nuspec = zip.getInputStream(entry)) {
+                            Document document = newDocumentBuilderFactory().newDocumentBuilder().parse(nuspec);
+                            id = getText(document, "id");
+                            version = getText(document, "version");
+                        } catch (ParserConfigurationException | SAXException e) {
+                            throw new IOException("Unable to read the nuspec of " + file, e);
+                        }
+                        break;
+                    }
+                }
+            }
+            if (id == null || version == null) {
+                throw new IOException("Unable to read the package id and version of " + file);
+            }
+
+            try (InputStream input = new DigestInputStream(Files.newInputStream(file.toPath()), Hashes.newSha256())) {
+                byte[] buffer = new byte[64 * 1024];
+                while (input.read(buffer) != -1) {
+                    // digested while reading
+                }
+                return new LocalPackage(file.getName(), id, version, Util.toHexString(((DigestInputStream) input).getMessageDigest().digest()));
+            }
+        }
+
+        private static DocumentBuilderFactory newDocumentBuilderFactory() throws ParserConfigurationException {
+            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+            factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+            factory.setAttribute(XMLConstants.ACCESS_EXTERNAL_DTD, "");
+            factory.setAttribute(XMLConstants.ACCESS_EXTERNAL_SCHEMA, "");
+            return factory;
+        }
+
+        private static String getText(@Nonnull Document document, @Nonnull String tagName) {
+            NodeList nodes = document.getElementsByTagName(tagName);
+            return nodes.getLength() > 0 ? nodes.item(0).getTextContent().trim() : null;
+        }
+    }
+}
@@ -7,5 +7,6 @@ public final class EnvironmentVariablesConsts {
 
     public static final String BUILD_TAG = "BUILD_TAG";
     public static final String WORKSPACE = "WORKSPACE";
+    public static final String JENKINS_HOME = "JENKINS_HOME";
     public static final String UIPATH_EXTENSIONS_CLI_TELEMETRY_ENABLED = "UIPATH_EXTENSIONS_CLI_TELEMETRY_ENABLED";
 }
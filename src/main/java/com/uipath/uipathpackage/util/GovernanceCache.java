@@ -0,0 +1,218 @@
+package com.uipath.uipathpackage.util;
+
+import com.uipath.uipathpackage.configuration.UiPathCliConfiguration;
+import com.uipath.uipathpackage.configuration.UiPathGlobalConfiguration;
+import hudson.AbortException;
+import hudson.EnvVars;
+import hudson.FilePath;
+import hudson.Launcher;
+import hudson.Util;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import hudson.remoting.VirtualChannel;
+import jenkins.MasterToSlaveFileCallable;
+import jenkins.model.Jenkins;
+import org.json.JSONException;
+import org.json.JSONTokener;
+
+import javax.annotation.Nonnull;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Validates a governance file once per build and hands the analyses an immutable, content-addressed copy of it,
+ * kept in the node cache directory when the node-wide CLI cache is enabled, so a file edited during the build cannot give
+ * two analyses different rules. Without the node cache the copy is kept in the temporary folder of the step,
+ * and the file is validated once per step.
+ * Also records the analyses which found no violation, by project and policy hash, so an unchanged project is not analyzed again.
+ */
+public final class GovernanceCache {
+    private static final Logger LOGGER = Logger.getLogger(GovernanceCache.class.getName());
+    private static final long CLEAN_RUN_RETENTION_MILLIS = TimeUnit.DAYS.toMillis(30);
+    private static final int CLEAN_RUNS_BETWEEN_PRUNES = 100;
+    private static final AtomicInteger CLEAN_RUNS_SINCE_PRUNE = new AtomicInteger();
+    // policies validated by the running builds, by node and path, kept in memory only so they are not saved with the build
+    private static final Map<Run<?, ?>, ConcurrentMap<String, Policy>> POLICIES = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private GovernanceCache() {
+        // Prevent instantiation
+    }
+
+    /**
+     * Resolves the validated copy of a governance file, validating and caching it on its first use in the build
+     *
+     * @param run            build the analyses belong to
+     * @param governanceFile governance file of the workspace
+     * @param tempRemoteDir  temporary folder of the step, holding the copy when the node cache is disabled
+     * @param launcher       launcher of the node
+     * @param envVars        environment variables
+     * @param listener       task listener
+     * @return Policy the cached copy and its hash
+     */
+    public static Policy resolve(@Nonnull Run<?, ?> run, @Nonnull FilePath governanceFile, @Nonnull FilePath tempRemoteDir, @Nonnull Launcher launcher, @Nonnull EnvVars envVars, @Nonnull TaskListener listener) throws IOException, InterruptedException {
+        UiPathGlobalConfiguration globalConfiguration = UiPathGlobalConfiguration.get();
+        boolean nodeCache = globalConfiguration != null && globalConfiguration.isNodeCliCache();
+        // the copy in the temporary folder is deleted with the step, it cannot be shared with the other steps of the build
+        ConcurrentMap<String, Policy> policies = nodeCache ? POLICIES.computeIfAbsent(run, k -> new ConcurrentHashMap<>()) : new ConcurrentHashMap<>();
+
+        String policyKey = Utility.getNodeName(governanceFile.getChannel()) + "|" + governanceFile.getRemote();
+        Policy policy = policies.get(policyKey);
+        if (policy != null) {
+            return policy;
+        }
+
+        // concurrent steps of the build may validate the same file, the result is identical
+        String sha256 = governanceFile.act(new ValidateCallable());
+        FilePath policyDir = nodeCache
+                ? UiPathCliConfiguration.getInstance().getNodeCacheRootDirectory(launcher, envVars).child("governance")
+                : tempRemoteDir.child("governance");
+        policyDir.mkdirs();
+        FilePath cachedFile = policyDir.child(sha256 + ".json");
+        if (!cachedFile.exists()) {
+            FilePath writing = policyDir.createTempFile(sha256, ".tmp");
+            governanceFile.copyTo(writing);
+            writing.renameTo(cachedFile);
+        }
+        listener.getLogger().println("Governance file " + governanceFile.getRemote() + " validated, using " + cachedFile.getRemote());
+
+        policy = new Policy(cachedFile.getRemote(), sha256);
+        Policy existing = policies.putIfAbsent(policyKey, policy);
+        return existing != null ? existing : policy;
+    }
+
+    /**
+     * Builds the key of an analysis run
+     *
+     * @param parts project hash, policy hash and analysis options
+     * @return String the key
+     */
+    public static String getAnalysisKey(@Nonnull String... parts) throws IOException {
+        return Hashes.combine(parts);
+    }
+
+    /**
+     * Whether a previous analysis with the same key found no violation
+     *
+     * @param analysisKey key of the analysis
+     * @return boolean true if the analysis can be skipped
+     */
+    public static boolean isClean(@Nonnull String analysisKey) {
+        File marker = getCleanRunFile(analysisKey);
+        if (!marker.isFile()) {
+            return false;
+        }
+        // the modification time is the last use, considered by the pruning
+        if (!marker.setLastModified(System.currentTimeMillis())) {
+            LOGGER.log(Level.FINE, "Unable to touch {0}", marker);
+        }
+        return true;
+    }
+
+    /**
+     * Records an analysis which found no violation
+     *
+     * @param analysisKey key of the analysis
+     */
+    public static void markClean(@Nonnull String analysisKey) throws IOException {
+        File marker = getCleanRunFile(analysisKey);
+        File parentDir = marker.getParentFile();
+        if (!parentDir.isDirectory() && !parentDir.mkdirs()) {
+            throw new IOException("Unable to create the directory " + parentDir);
+        }
+        Files.write(marker.toPath(), new byte[0]);
+
+        if (CLEAN_RUNS_SINCE_PRUNE.incrementAndGet() >= CLEAN_RUNS_BETWEEN_PRUNES) {
+            CLEAN_RUNS_SINCE_PRUNE.set(0);
+            pruneCleanRuns(parentDir);
+        }
+    }
+
+    private static void pruneCleanRuns(@Nonnull File cleanRunsDir) {
+        long oldest = System.currentTimeMillis() - CLEAN_RUN_RETENTION_MILLIS;
+        File[] markers = cleanRunsDir.listFiles(file -> file.lastModified() < oldest);
+        if (markers == null) {
+            return;
+        }
+        for (File marker : markers) {
+            try {
+                Files.deleteIfExists(marker.toPath());
+            } catch (IOException e) {
+                LOGGER.log(Level.FINE, "Unable to delete " + marker, e);
+            }
+        }
+    }
+
+    private static File getCleanRunFile(@Nonnull String analysisKey) {
+        return new File(Jenkins.get().getRootDir(), "caches/uipath-analysis/" + analysisKey);
+    }
+
+    /**
+     * Governance file validated in a build
+     */
+    public static final class Policy {
+        private final String path;
+        private final String sha256;
+
+        private Policy(@Nonnull String path, @Nonnull String sha256) {
+            this.path = path;
+            this.sha256 = sha256;
+        }
+
+        /**
+         * @return String the path of the cached copy on the node
+         */
+        public String getPath() {
+            return path;
+        }
+
+        /**
+         * @return String the hex encoded SHA-256 of the content
+         */
+        public String getSha256() {
+            return sha256;
+        }
+    }
+
+    /**
+     * Checks the governance file is well-formed JSON, failing the build once instead of failing every analysis
+     */
+    private static final class ValidateCallable extends MasterToSlaveFileCallable<String> {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public String invoke(File governanceFile, VirtualChannel channel) throws IOException {
+            if (!governanceFile.isFile()) {
+                throw new AbortException("The governance file " + governanceFile + " does not exist");
+            }
+
+            byte[] content = Files.readAllBytes(governanceFile.toPath());
+            try {
+                String policy = new String(content, StandardCharsets.UTF_8);
+                // Studio and Windows editors may save the file with a byte order mark, which the CLI accepts
+                if (policy.startsWith("\uFEFF")) {
+                    policy = policy.substring(1);
+                }
+                JSONTokener tokener = new JSONTokener(policy);
+                tokener.nextValue();
+                if (tokener.nextClean() != 0) {
+                    throw new JSONException("unexpected content after the policy");
+                }
+            } catch (JSONException e) {
+                throw new AbortException("The governance file " + governanceFile + " is not valid JSON: " + e.getMessage());
+            }
+
+            return Util.toHexString(Hashes.newSha256().digest(content));
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.uipath.uipathpackage.util;
+
+import hudson.Util;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * SHA-256 helpers shared by the caches and ledgers keyed by content, e.g. the CLI cache markers, the pack manifests
+ * or the deploy ledger.
+ */
+public final class Hashes {
+
+    private Hashes() {
+        // Prevent instantiation
+    }
+
+    /**
+     * @return MessageDigest a new SHA-256 digest
+     */
+    public static MessageDigest newSha256() throws IOException {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * @param text text to hash, encoded as UTF-8
+     * @return String the hex encoded SHA-256 of the text
+     */
+    public static String sha256(@Nonnull String text) throws IOException {
+        return Util.toHexString(newSha256().digest(text.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Combines values into one key, e.g. the files hash of a project with the hash of its options
+     *
+     * @param parts values to combine
+     * @return String the hex encoded SHA-256 of the parts
+     */
+    public static String combine(@Nonnull String... parts) throws IOException {
+        return sha256(String.join("\n", parts));
+    }
+}
@@ -0,0 +1,340 @@
+package com.uipath.uipathpackage.util;
+
+import hudson.FilePath;
+import hudson.remoting.VirtualChannel;
+import jenkins.MasterToSlaveFileCallable;
+
+import javax.annotation.Nonnull;
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLEventFactory;
+import javax.xml.stream.XMLEventReader;
+import javax.xml.stream.XMLEventWriter;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.events.Attribute;
+import javax.xml.stream.events.XMLEvent;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Streaming operations on JUnit reports, run on the node holding the reports so their size does not matter.
+ */
+public final class JUnitReports {
+    private static final String TEST_SUITE = "testsuite";
+    private static final String TEST_SUITES = "testsuites";
+    private static final String TEST_CASE = "testcase";
+    private static final String FAILURE = "failure";
+    private static final String ERROR = "error";
+    private static final String SYSTEM_OUT = "system-out";
+    private static final String SYSTEM_ERR = "system-err";
+
+    private JUnitReports() {
+        // Prevent instantiation
+    }
+
+    /**
+     * Merges the test suites of several reports into a single report
+     *
+     * @param target  merged report
+     * @param sources reports to merge, the missing ones are ignored
+     * @return int the number of merged reports
+     */
+    public static int merge(@Nonnull FilePath target, @Nonnull List<FilePath> sources) throws IOException, InterruptedException {
+        List<String> sourcePaths = new ArrayList<>();
+        for (FilePath source : sources) {
+            sourcePaths.add(source.getRemote());
+        }
+        FilePath parent = target.getParent();
+        if (parent != null) {
+            parent.mkdirs();
+        }
+        return target.act(new MergeCallable(sourcePaths));
+    }
+
+    /**
+     * Reads the name, duration and outcome of the test cases of a report, without their outputs
+     *
+     * @param report JUnit report
+     * @return List the test cases, empty if the report does not exist
+     */
+    public static List<TestCaseOutcome> readTestCases(@Nonnull FilePath report) throws IOException, InterruptedException {
+        return report.act(new ReadTestCasesCallable());
+    }
+
+    /**
+     * Truncates the system-out and system-err of the test cases longer than maxLength characters.
+     * The full output is written to a side file, referenced by the truncated output, to archive with the build.
+     *
+     * @param report         JUnit report, rewritten in place
+     * @param sideFilesDir   folder of the side files
+     * @param artifactPrefix path of the side files in the build artifacts
+     * @param maxLength      maximum length kept in the report
+     * @return List the side files, relative to sideFilesDir
+     */
+    public static List<String> truncateStdio(@Nonnull FilePath report, @Nonnull FilePath sideFilesDir, @Nonnull String artifactPrefix, int maxLength) throws IOException, InterruptedException {
+        sideFilesDir.mkdirs();
+        return report.act(new TruncateStdioCallable(sideFilesDir.getRemote(), artifactPrefix, maxLength));
+    }
+
+    static XMLInputFactory newInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return factory;
+    }
+
+    /**
+     * Name, duration and outcome of a test case of a report
+     */
+    public static final class TestCaseOutcome implements Serializable {
+        private static final long serialVersionUID = 1L;
+        private final String name;
+        private final float duration;
+        private final boolean failed;
+
+        private TestCaseOutcome(@Nonnull String name, float duration, boolean failed) {
+            this.name = name;
+            this.duration = duration;
+            this.failed = failed;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return float the duration in seconds
+         */
+        public float getDuration() {
+            return duration;
+        }
+
+        public boolean isFailed() {
+            return failed;
+        }
+    }
+
+    private static final class ReadTestCasesCallable extends MasterToSlaveFileCallable<List<TestCaseOutcome>> {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public List<TestCaseOutcome> invoke(File report, VirtualChannel channel) throws IOException {
+            List<TestCaseOutcome> testCases = new ArrayList<>();
+            if (!report.isFile()) {
+                return testCases;
+            }
+            String name = null;
+            float duration = 0;
+            boolean failed = false;
+            try (InputStream input = Files.newInputStream(report.toPath())) {
+                XMLStreamReader reader = newInputFactory().createXMLStreamReader(input);
+                while (reader.hasNext()) {
+                    int event = reader.next();
+                    if (event == XMLStreamConstants.START_ELEMENT) {
+                        String element = reader.getLocalName();
+                        if (TEST_CASE.equals(element)) {
+                            name = reader.getAttributeValue(null, "name");
+                            duration = parseDuration(reader.getAttributeValue(null, "time"));
+                            failed = false;
+                        } else if (FAILURE.equals(element) || ERROR.equals(element)) {
+                            failed = true;
+                        }
+                    } else if (event == XMLStreamConstants.END_ELEMENT && TEST_CASE.equals(reader.getLocalName())) {
+                        if (name != null) {
+                            testCases.add(new TestCaseOutcome(name, duration, failed));
+                        }
+                        name = null;
+                    }
+                }
+                reader.close();
+            } catch (XMLStreamException e) {
+                throw new IOException("Unable to read the test results " + report, e);
+            }
+            return testCases;
+        }
+
+        private static float parseDuration(String time) {
+            if (time == null) {
+                return 0;
+            }
+            try {
+                // some reporters group the thousands, e.g. 1,234.5
+                return Float.parseFloat(time.replace(",", ""));
+            } catch (NumberFormatException e) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Streams the report to a copy in which the long outputs are truncated, then replaces the report with it.
+     * Only the kept part of an output is held in memory, the rest is streamed to its side file.
+     */
+    private static final class TruncateStdioCallable extends MasterToSlaveFileCallable<List<String>> {
+        private static final long serialVersionUID = 1L;
+        private final String sideFilesDir;
+        private final String artifactPrefix;
+        private final int maxLength;
+
+        private TruncateStdioCallable(@Nonnull String sideFilesDir, @Nonnull String artifactPrefix, int maxLength) {
+            this.sideFilesDir = sideFilesDir;
+            this.artifactPrefix = artifactPrefix;
+            this.maxLength = maxLength;
+        }
+
+        @Override
+        public List<String> invoke(File report, VirtualChannel channel) throws IOException {
+            List<String> sideFiles = new ArrayList<>();
+            if (!report.isFile()) {
+                return sideFiles;
+            }
+
+            File truncated = new File(report.getPath() + ".tmp");
+            XMLEventFactory eventFactory = XMLEventFactory.newInstance();
+            try (InputStream input = Files.newInputStream(report.toPath());
+                 OutputStream output = Files.newOutputStream(truncated.toPath())) {
+                XMLEventReader reader = newInputFactory().createXMLEventReader(input);
+                XMLEventWriter writer = XMLOutputFactory.newInstance().createXMLEventWriter(output, StandardCharsets.UTF_8.name());
+                String testCase = null;
+                StringBuilder kept = null;
+                Writer sideFile = null;
+                String sideFileName = null;
+                long length = 0;
+                while (reader.hasNext()) {
+                    XMLEvent event = reader.nextEvent();
+                    if (event.isStartDocument()) {
+                        writer.add(eventFactory.createStartDocument(StandardCharsets.UTF_8.name(), "1.0"));
+                        continue;
+                    }
+                    if (event.isStartElement()) {
+                        String name = event.asStartElement().getName().getLocalPart();
+                        if (TEST_CASE.equals(name)) {
+                            Attribute nameAttribute = event.asStartElement().getAttributeByName(new QName("name"));
+                            testCase = nameAttribute != null ? nameAttribute.getValue() : "testcase";
+                        } else if (testCase != null && (SYSTEM_OUT.equals(name) || SYSTEM_ERR.equals(name))) {
+                            kept = new StringBuilder();
+                            sideFileName = String.format(Locale.ENGLISH, "%04d-%s.%s.txt", sideFiles.size() + 1, sanitize(testCase), SYSTEM_OUT.equals(name) ? "out" : "err");
+                            length = 0;
+                        }
+                    } else if (kept != null && event.isCharacters()) {
+                        String text = event.asCharacters().getData();
+                        length += text.length();
+                        if (sideFile == null && length > maxLength) {
+                            sideFile = Files.newBufferedWriter(new File(sideFilesDir, sideFileName).toPath(), StandardCharsets.UTF_8);
+                            sideFile.write(kept.toString());
+                        }
+                        if (sideFile != null) {
+                            sideFile.write(text);
+                        }
+                        if (kept.length() < maxLength) {
+                            kept.append(text, 0, Math.min(text.length(), maxLength - kept.length()));
+                        }
+                        continue;
+                    } else if (event.isEndElement()) {
+                        String name = event.asEndElement().getName().getLocalPart();
+                        if (kept != null && (SYSTEM_OUT.equals(name) || SYSTEM_ERR.equals(name))) {
+                            if (sideFile != null) {
+                                sideFile.close();
+                                sideFile = null;
+                                sideFiles.add(sideFileName);
+                                kept.append(String.format(Locale.ENGLISH, "%n[%d characters truncated, the full output is archived as %s/%s]", length - kept.length(), artifactPrefix, sideFileName));
+                            }
+                            writer.add(eventFactory.createCharacters(kept.toString()));
+                            kept = null;
+                        } else if (TEST_CASE.equals(name)) {
+                            testCase = null;
+                        }
+                    }
+                    writer.add(event);
+                }
+                writer.close();
+                reader.close();
+            } catch (XMLStreamException e) {
+                Files.deleteIfExists(truncated.toPath());
+                throw new IOException("Unable to truncate the outputs of the test results " + report, e);
+            }
+
+            Files.move(truncated.toPath(), report.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            return sideFiles;
+        }
+
+        private static String sanitize(@Nonnull String name) {
+            String sanitized = name.replaceAll("[^A-Za-z0-9._-]+", "_");
+            return sanitized.length() > 80 ? sanitized.substring(0, 80) : sanitized;
+        }
+    }
+
+    private static final class MergeCallable extends MasterToSlaveFileCallable<Integer> {
+        private static final long serialVersionUID = 1L;
+        private final List<String> sourcePaths;
+
+        private MergeCallable(@Nonnull List<String> sourcePaths) {
+            this.sourcePaths = sourcePaths;
+        }
+
+        @Override
+        public Integer invoke(File target, VirtualChannel channel) throws IOException {
+            XMLInputFactory inputFactory = newInputFactory();
+            XMLEventFactory eventFactory = XMLEventFactory.newInstance();
+            int merged = 0;
+            try (OutputStream output = Files.newOutputStream(target.toPath())) {
+                XMLEventWriter writer = XMLOutputFactory.newInstance().createXMLEventWriter(output, StandardCharsets.UTF_8.name());
+                writer.add(eventFactory.createStartDocument(StandardCharsets.UTF_8.name(), "1.0"));
+                writer.add(eventFactory.createStartElement("", "", TEST_SUITES));
+                for (String sourcePath : sourcePaths) {
+                    File source = new File(sourcePath);
+                    if (!source.isFile()) {
+                        continue;
+                    }
+                    try (InputStream input = Files.newInputStream(source.toPath())) {
+                        copyTestSuites(inputFactory.createXMLEventReader(input), writer);
+                    }
+                    merged++;
+                }
+                writer.add(eventFactory.createEndElement("", "", TEST_SUITES));
+                writer.add(eventFactory.createEndDocument());
+                writer.close();
+            } catch (XMLStreamException e) {
+                throw new IOException("Unable to merge the test results into " + target, e);
+            }
+            return merged;
+        }
+
+        /**
+         * Copies the testsuite elements of a report, whether its root is a testsuite or a testsuites element
+         */
+        private static void copyTestSuites(@Nonnull XMLEventReader reader, @Nonnull XMLEventWriter writer) throws XMLStreamException {
+            int suiteDepth = 0;
+            while (reader.hasNext()) {
+                XMLEvent event = reader.nextEvent();
+                if (suiteDepth == 0) {
+                    if (event.isStartElement() && TEST_SUITE.equals(event.asStartElement().getName().getLocalPart())) {
+                        suiteDepth = 1;
+                        writer.add(event);
+                    }
+                    continue;
+                }
+                if (event.isStartElement()) {
+                    suiteDepth++;
+                } else if (event.isEndElement()) {
+                    suiteDepth--;
+                }
+                writer.add(event);
+            }
+            reader.close();
+        }
+    }
+}
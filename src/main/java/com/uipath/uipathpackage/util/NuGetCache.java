@@ -0,0 +1,277 @@
+package com.uipath.uipathpackage.util;
+
+import com.google.common.util.concurrent.Striped;
+import com.uipath.uipathpackage.configuration.UiPathCliConfiguration;
+import com.uipath.uipathpackage.configuration.UiPathGlobalConfiguration;
+import hudson.EnvVars;
+import hudson.FilePath;
+import hudson.Launcher;
+import hudson.model.TaskListener;
+import hudson.remoting.VirtualChannel;
+import jenkins.MasterToSlaveFileCallable;
+import org.apache.commons.lang.StringUtils;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * NuGet global packages and HTTP cache folders shared by all the CLI runs of a node.
+ * The activity packages restored by pack, analyze and test are then downloaded once per node instead of once per workspace.
+ * The cache is pruned least recently used first once it grows over its size limit, at most once per interval per node.
+ */
+public final class NuGetCache {
+    public static final String NUGET_PACKAGES = "NUGET_PACKAGES";
+    public static final String NUGET_HTTP_CACHE_PATH = "NUGET_HTTP_CACHE_PATH";
+    private static final String PACKAGES_FOLDER = "packages";
+    private static final String HTTP_CACHE_FOLDER = "http-cache";
+    private static final long PRUNE_INTERVAL_MILLIS = TimeUnit.MINUTES.toMillis(10);
+    // CLI runs hold the read lock, so the pruning never deletes a package being restored by a concurrent build of the node
+    private static final Striped<ReadWriteLock> CACHE_LOCKS = Striped.lazyWeakReadWriteLock(16);
+    // last time the cache of a node was measured for pruning
+    private static final ConcurrentMap<String, Long> LAST_PRUNED = new ConcurrentHashMap<>();
+
+    private final FilePath cacheDir;
+    private final String cacheKey;
+    private final Lock runLock;
+    private final Lock pruneLock;
+    private final int packagesBefore;
+
+    private NuGetCache(@Nonnull FilePath cacheDir, @Nonnull String cacheKey, @Nonnull ReadWriteLock lock, int packagesBefore) {
+        this.cacheDir = cacheDir;
+        this.cacheKey = cacheKey;
+        this.runLock = lock.readLock();
+        this.pruneLock = lock.writeLock();
+        this.packagesBefore = packagesBefore;
+    }
+
+    /**
+     * Points the CLI runs to the node NuGet cache, when enabled and not already set by the build environment
+     *
+     * @param launcher launcher of the node
+     * @param envVars  environment variables of the CLI runs, updated with the cache folders
+     * @param listener task listener
+     * @return NuGetCache the cache session to close after the runs, null if the node cache is not used
+     */
+    @CheckForNull
+    public static NuGetCache open(@Nonnull Launcher launcher, @Nonnull EnvVars envVars, @Nonnull TaskListener listener) throws IOException, InterruptedException {
+        UiPathGlobalConfiguration globalConfiguration = UiPathGlobalConfiguration.get();
+        if (globalConfiguration == null || !globalConfiguration.isNugetCache()) {
+            return null;
+        }
+        if (StringUtils.isNotBlank(envVars.get(NUGET_PACKAGES))) {
+            listener.getLogger().println("NuGet cache: using " + envVars.get(NUGET_PACKAGES) + " set by the build environment");
+            return null;
+        }
+
+        FilePath cacheDir = UiPathCliConfiguration.getInstance().getNodeCacheRootDirectory(launcher, envVars).child("NuGet");
+        FilePath packagesDir = cacheDir.child(PACKAGES_FOLDER);
+        FilePath httpCacheDir = cacheDir.child(HTTP_CACHE_FOLDER);
+        packagesDir.mkdirs();
+        httpCacheDir.mkdirs();
+
+        String cacheKey = Utility.getNodeName(launcher.getChannel()) + "|" + cacheDir.getRemote();
+        ReadWriteLock lock = CACHE_LOCKS.get(cacheKey);
+        lock.readLock().lockInterruptibly();
+        int packagesBefore;
+        try {
+            packagesBefore = cacheDir.act(new CountPackagesCallable());
+        } catch (IOException | InterruptedException | RuntimeException e) {
+            lock.readLock().unlock();
+            throw e;
+        }
+        envVars.put(NUGET_PACKAGES, packagesDir.getRemote());
+        envVars.put(NUGET_HTTP_CACHE_PATH, httpCacheDir.getRemote());
+        return new NuGetCache(cacheDir, cacheKey, lock, packagesBefore);
+    }
+
+    /**
+     * Logs the package versions added to the cache during the runs, then prunes the cache if it grew over its size limit.
+     * The runs of concurrent builds share the cache, so the packages they restored meanwhile are counted too,
+     * and the packages reused from the cache are not counted.
+     *
+     * @param listener task listener
+     */
+    public void close(@Nonnull TaskListener listener) throws IOException, InterruptedException {
+        int packagesAfter;
+        try {
+            packagesAfter = cacheDir.act(new CountPackagesCallable());
+        } finally {
+            runLock.unlock();
+        }
+        listener.getLogger().println("NuGet cache: " + Math.max(0, packagesAfter - packagesBefore) + " package versions added during the runs, "
+                + packagesAfter + " cached in " + cacheDir.getRemote());
+
+        if (!isPruneDue()) {
+            return;
+        }
+        // the cache is measured while the runs of the node go on, the write lock is only held to delete
+        UiPathGlobalConfiguration globalConfiguration = UiPathGlobalConfiguration.get();
+        long maxBytes = (globalConfiguration != null ? globalConfiguration.getNugetCacheMaxSize() : UiPathGlobalConfiguration.DEFAULT_NUGET_CACHE_MAX_SIZE) * 1024L * 1024L;
+        List<String> evictions = cacheDir.act(new SelectEvictionsCallable(maxBytes));
+        if (evictions.isEmpty()) {
+            return;
+        }
+
+        // a build waiting for the runs of the node to complete would stall, the eviction is left to the next pruning instead
+        if (!pruneLock.tryLock()) {
+            LAST_PRUNED.remove(cacheKey);
+            return;
+        }
+        try {
+            int evicted = cacheDir.act(new DeleteEntriesCallable(evictions));
+            listener.getLogger().println("NuGet cache: pruned " + evicted + " least recently used entries");
+        } finally {
+            pruneLock.unlock();
+        }
+    }
+
+    /**
+     * Claims the pruning of the node cache if it was not pruned during the last interval
+     */
+    private boolean isPruneDue() {
+        long now = System.currentTimeMillis();
+        Long lastPruned = LAST_PRUNED.get(cacheKey);
+        if (lastPruned == null) {
+            return LAST_PRUNED.putIfAbsent(cacheKey, now) == null;
+        }
+        return now - lastPruned >= PRUNE_INTERVAL_MILLIS && LAST_PRUNED.replace(cacheKey, lastPruned, now);
+    }
+
+    /**
+     * Counts the package versions of the cache
+     */
+    private static final class CountPackagesCallable extends MasterToSlaveFileCallable<Integer> {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public Integer invoke(File cacheDir, VirtualChannel channel) {
+            int packages = 0;
+            File[] ids = new File(cacheDir, PACKAGES_FOLDER).listFiles(File::isDirectory);
+            if (ids != null) {
+                for (File id : ids) {
+                    File[] versions = id.listFiles(File::isDirectory);
+                    packages += versions != null ? versions.length : 0;
+                }
+            }
+            return packages;
+        }
+    }
+
+    /**
+     * Selects the least recently used package versions and HTTP cache files to delete so the cache fits its size limit.
+     * The recency of an entry is the latest access or modification time of its files.
+     */
+    private static final class SelectEvictionsCallable extends MasterToSlaveFileCallable<List<String>> {
+        private static final long serialVersionUID = 1L;
+        private final long maxBytes;
+
+        private SelectEvictionsCallable(long maxBytes) {
+            this.maxBytes = maxBytes;
+        }
+
+        @Override
+        public List<String> invoke(File cacheDir, VirtualChannel channel) throws IOException {
+            List<CacheEntry> entries = new ArrayList<>();
+            File[] ids = new File(cacheDir, PACKAGES_FOLDER).listFiles(File::isDirectory);
+            if (ids != null) {
+                for (File id : ids) {
+                    File[] versions = id.listFiles(File::isDirectory);
+                    if (versions != null) {
+                        for (File version : versions) {
+                            entries.add(measure(version.toPath()));
+                        }
+                    }
+                }
+            }
+            File[] httpCacheFiles = new File(cacheDir, HTTP_CACHE_FOLDER).listFiles();
+            if (httpCacheFiles != null) {
+                for (File httpCacheFile : httpCacheFiles) {
+                    entries.add(measure(httpCacheFile.toPath()));
+                }
+            }
+
+            long totalBytes = 0;
+            for (CacheEntry entry : entries) {
+                totalBytes += entry.sizeBytes;
+            }
+            List<String> evictions = new ArrayList<>();
+            entries.sort(Comparator.comparingLong(entry -> entry.lastUsedMillis));
+            for (CacheEntry entry : entries) {
+                if (totalBytes <= maxBytes) {
+                    break;
+                }
+                evictions.add(entry.path.toString());
+                totalBytes -= entry.sizeBytes;
+            }
+            return evictions;
+        }
+
+        private static CacheEntry measure(@Nonnull Path path) throws IOException {
+            long[] sizeAndRecency = new long[2];
+            try (Stream<Path> walk = Files.walk(path)) {
+                walk.forEach(file -> {
+                    try {
+                        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                        if (attributes.isRegularFile()) {
+                            sizeAndRecency[0] += attributes.size();
+                        }
+                        sizeAndRecency[1] = Math.max(sizeAndRecency[1], Math.max(attributes.lastAccessTime().toMillis(), attributes.lastModifiedTime().toMillis()));
+                    } catch (IOException e) {
+                        // deleted meanwhile, ignored
+                    }
+                });
+            }
+            return new CacheEntry(path, sizeAndRecency[0], sizeAndRecency[1]);
+        }
+    }
+
+    /**
+     * Deletes the selected entries, while no CLI run of the node uses the cache
+     */
+    private static final class DeleteEntriesCallable extends MasterToSlaveFileCallable<Integer> {
+        private static final long serialVersionUID = 1L;
+        private final List<String> paths;
+
+        private DeleteEntriesCallable(@Nonnull List<String> paths) {
+            this.paths = new ArrayList<>(paths);
+        }
+
+        @Override
+        public Integer invoke(File cacheDir, VirtualChannel channel) {
+            int evicted = 0;
+            for (String path : paths) {
+                try {
+                    hudson.Util.deleteRecursive(new File(path));
+                    evicted++;
+                } catch (IOException e) {
+                    // still in use, retried by the next pruning
+                }
+            }
+            return evicted;
+        }
+    }
+
+    private static final class CacheEntry {
+        private final Path path;
+        private final long sizeBytes;
+        private final long lastUsedMillis;
+
+        private CacheEntry(@Nonnull Path path, long sizeBytes, long lastUsedMillis) {
+            this.path = path;
+            this.sizeBytes = sizeBytes;
+            this.lastUsedMillis = lastUsedMillis;
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.uipath.uipathpackage.util;
+
+import hudson.FilePath;
+import hudson.Util;
+import hudson.remoting.VirtualChannel;
+import jenkins.MasterToSlaveFileCallable;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Records the inputs of the last successful pack of a project next to its output, so an unchanged project is not packed again.
+ * The inputs hash covers every file of the project folder, hashed in parallel on the agent, the extra input files
+ * (e.g. the governance file) and a fingerprint of the pack options.
+ */
+public final class PackManifest {
+    private static final String INPUTS_KEY = "inputs";
+    private static final String PACKAGES_KEY = "packages";
+    private static final Set<String> IGNORED_FOLDERS = new HashSet<>(Arrays.asList(".git", ".local", ".tmh", ".objects"));
+
+    private final FilePath manifestFile;
+
+    /**
+     * @param outputDir       pack output folder holding the manifest
+     * @param projectJsonPath project.json or project(s) folder being packed
+     */
+    public PackManifest(@Nonnull FilePath outputDir, @Nonnull FilePath projectJsonPath) throws IOException {
+        this.manifestFile = outputDir.child(".uipath-pack-" + Hashes.sha256(projectJsonPath.getRemote()).substring(0, 16) + ".manifest");
+    }
+
+    /**
+     * Computes the inputs hash of a project
+     *
+     * @param projectJsonPath    project.json or project(s) folder being packed
+     * @param outputDir          pack output folder, ignored if it is inside the project folder
+     * @param extraInputs        additional input files, missing ones are ignored
+     * @param optionsFingerprint fingerprint of the pack options
+     * @return String the hex encoded SHA-256 of the inputs
+     */
+    public static String computeInputsHash(@Nonnull FilePath projectJsonPath, @Nonnull FilePath outputDir, @Nonnull List<String> extraInputs, @Nonnull String optionsFingerprint) throws IOException, InterruptedException {
+        FilePath projectDir = projectJsonPath.isDirectory() ? projectJsonPath : Objects.requireNonNull(projectJsonPath.getParent());
+        return projectDir.act(new InputsHashCallable(outputDir.getRemote(), extraInputs, optionsFingerprint));
+    }
+
+    /**
+     * Gets the packages of the last successful pack, if its inputs match and all its packages still exist
+     *
+     * @param inputsHash inputs hash of the project
+     * @return List the package file names, null if the project has to be packed
+     */
+    @CheckForNull
+    public List<String> findReusablePackages(@Nonnull String inputsHash) throws IOException, InterruptedException {
+        if (!manifestFile.exists()) {
+            return null;
+        }
+
+        Properties manifest = new Properties();
+        try (InputStream in = manifestFile.read()) {
+            manifest.load(in);
+        }
+        if (!inputsHash.equals(manifest.getProperty(INPUTS_KEY))) {
+            return null;
+        }
+
+        String packages = manifest.getProperty(PACKAGES_KEY, "");
+        if (packages.isEmpty()) {
+            return null;
+        }
+
+        List<String> packageNames = Arrays.asList(packages.split(","));
+        FilePath outputDir = Objects.requireNonNull(manifestFile.getParent());
+        for (String packageName : packageNames) {
+            if (!outputDir.child(packageName).exists()) {
+                return null;
+            }
+        }
+        return packageNames;
+    }
+
+    /**
+     * Records a successful pack
+     *
+     * @param inputsHash   inputs hash of the project
+     * @param packageNames file names of the produced packages
+     */
+    public void write(@Nonnull String inputsHash, @Nonnull List<String> packageNames) throws IOException, InterruptedException {
+        Properties manifest = new Properties();
+        manifest.setProperty(INPUTS_KEY, inputsHash);
+        manifest.setProperty(PACKAGES_KEY, String.join(",", packageNames));
+        StringWriter content = new StringWriter();
+        manifest.store(content, "UiPath pack inputs");
+        manifestFile.write(content.toString(), StandardCharsets.UTF_8.name());
+    }
+
+    /**
+     * Forgets the last pack, before packing again
+     */
+    public void delete() throws IOException, InterruptedException {
+        manifestFile.delete();
+    }
+
+    private static final class InputsHashCallable extends MasterToSlaveFileCallable<String> {
+        private static final long serialVersionUID = 1L;
+        private final String outputDir;
+        private final List<String> extraInputs;
+        private final String optionsFingerprint;
+
+        private InputsHashCallable(@Nonnull String outputDir, @Nonnull List<String> extraInputs, @Nonnull String optionsFingerprint) {
+            this.outputDir = outputDir;
+            this.extraInputs = new ArrayList<>(extraInputs);
+            this.optionsFingerprint = optionsFingerprint;
+        }
+
+        @Override
+        public String invoke(File projectDir, VirtualChannel channel) throws IOException {
+            Path root = projectDir.toPath();
+            Path output = new File(outputDir).toPath().toAbsolutePath().normalize();
+            List<Path> files;
+            try (Stream<Path> walk = Files.walk(root)) {
+                files = walk.filter(Files::isRegularFile)
+                        .filter(file -> !isIgnored(root.relativize(file)) && !file.toAbsolutePath().normalize().startsWith(output))
+                        .collect(Collectors.toList());
+            }
+            for (String extraInput : extraInputs) {
+                Path file = new File(extraInput).toPath();
+                if (Files.isRegularFile(file)) {
+                    files.add(file);
+                }
+            }
+
+            // each file is streamed through its own digest, the files are hashed in parallel
+            SortedMap<String, String> hashesByPath;
+            try {
+                hashesByPath = files.parallelStream().collect(Collectors.toMap(
+                        file -> file.startsWith(root) ? root.relativize(file).toString().replace('\\', '/') : file.toString(),
+                        PackManifest.InputsHashCallable::hashFile,
+                        (first, second) -> first,
+                        TreeMap::new));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+
+            MessageDigest digest = Hashes.newSha256();
+            digest.update(optionsFingerprint.getBytes(StandardCharsets.UTF_8));
+            for (Map.Entry<String, String> file : hashesByPath.entrySet()) {
+                digest.update(("\n" + file.getKey() + ":" + file.getValue()).getBytes(StandardCharsets.UTF_8));
+            }
+            return Util.toHexString(digest.digest());
+        }
+
+        private static boolean isIgnored(@Nonnull Path relativePath) {
+            for (Path segment : relativePath) {
+                if (IGNORED_FOLDERS.contains(segment.toString())) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private static String hashFile(@Nonnull Path file) {
+            try (InputStream in = new BufferedInputStream(Files.newInputStream(file))) {
+                MessageDigest digest = Hashes.newSha256();
+                byte[] buffer = new byte[64 * 1024];
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    digest.update(buffer, 0, read);
+                }
+                return Util.toHexString(digest.digest());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.uipath.uipathpackage.util;
+
+import hudson.model.TaskListener;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * Failure handling of the items a step runs concurrently, e.g. the projects of a pack or the shards of a test run.
+ * The failure of an item is recorded with the item so the other items complete and the summary is printed,
+ * while an interruption, e.g. an aborted build, stops the whole step.
+ */
+public final class ParallelTasks {
+
+    private ParallelTasks() {
+        // Prevent instantiation
+    }
+
+    /**
+     * Body of a concurrent item
+     */
+    public interface Task {
+        void run() throws IOException, InterruptedException, URISyntaxException;
+    }
+
+    /**
+     * Runs the body of an item, printing its failure to the item listener
+     *
+     * @param task     body of the item
+     * @param listener listener of the item
+     * @return String the failure of the item, null if it succeeded
+     * @throws InterruptedException if the item was interrupted, it is not recorded as a failure
+     */
+    @CheckForNull
+    public static String run(@Nonnull Task task, @Nonnull TaskListener listener) throws InterruptedException {
+        try {
+            task.run();
+            return null;
+        } catch (IOException | URISyntaxException | RuntimeException e) {
+            String error = e.getMessage() != null ? e.getMessage() : e.toString();
+            listener.getLogger().println(error);
+            if (e instanceof RuntimeException) {
+                e.printStackTrace(listener.getLogger());
+            }
+            return error;
+        }
+    }
+
+    /**
+     * Waits for the result of an item, rethrowing an interruption as is
+     *
+     * @param future item
+     * @return T the result of the item
+     */
+    public static <T> T await(@Nonnull Future<T> future) throws IOException, InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof InterruptedException) {
+                throw (InterruptedException) cause;
+            }
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+}
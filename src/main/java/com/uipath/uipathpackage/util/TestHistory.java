@@ -0,0 +1,187 @@
+package com.uipath.uipathpackage.util;
+
+import hudson.FilePath;
+import hudson.model.Run;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+
+/**
+ * Test case durations and failures of the previous builds of a job, by project relative test case path.
+ * The history is a compact index kept with the job and updated from the reports of the shards,
+ * so the previous test results do not have to be loaded, and two test cases with the same name in different folders
+ * keep their own history.
+ */
+public final class TestHistory {
+    // a test case failed in one of the last MAX_BUILDS builds is a recent failure
+    private static final int MAX_BUILDS = 10;
+    private static final String DURATION = "duration";
+    private static final String FAILED_BUILD = "failedBuild";
+
+    private final File historyFile;
+    private final int buildNumber;
+    private final Map<String, Float> durations = new HashMap<>();
+    // last build in which a test case failed
+    private final Map<String, Integer> failedBuilds = new HashMap<>();
+
+    private TestHistory(@Nonnull File historyFile, int buildNumber) {
+        this.historyFile = historyFile;
+        this.buildNumber = buildNumber;
+    }
+
+    /**
+     * Reads the history of a test project
+     *
+     * @param run         current build
+     * @param projectJson project.json of the test project
+     * @return TestHistory the history, empty if no previous build recorded it or if it is unreadable
+     */
+    public static TestHistory load(@Nonnull Run<?, ?> run, @Nonnull FilePath projectJson) throws IOException {
+        File historyFile = new File(run.getParent().getRootDir(), "uipath-test-history/" + Hashes.combine(projectJson.getRemote()) + ".json");
+        TestHistory history = new TestHistory(historyFile, run.getNumber());
+        if (!historyFile.isFile()) {
+            return history;
+        }
+
+        JSONObject testCases;
+        try {
+            testCases = new JSONObject(new String(Files.readAllBytes(historyFile.toPath()), StandardCharsets.UTF_8)).optJSONObject("testCases");
+        } catch (JSONException e) {
+            return history;
+        }
+        if (testCases == null) {
+            return history;
+        }
+        for (String key : testCases.keySet()) {
+            JSONObject testCase = testCases.optJSONObject(key);
+            if (testCase == null) {
+                continue;
+            }
+            if (testCase.has(DURATION)) {
+                history.durations.put(key, (float) testCase.optDouble(DURATION));
+            }
+            if (testCase.has(FAILED_BUILD)) {
+                history.failedBuilds.put(key, testCase.optInt(FAILED_BUILD));
+            }
+        }
+        return history;
+    }
+
+    public boolean isEmpty() {
+        return durations.isEmpty();
+    }
+
+    /**
+     * @param testCase test case file, relative to the project
+     * @return Float the last known duration in seconds, null if unknown
+     */
+    @CheckForNull
+    public Float getDuration(@Nonnull String testCase) {
+        return durations.get(getKey(testCase));
+    }
+
+    /**
+     * Lists the test cases failed in the last builds, the most recently failed first, then the slowest first
+     *
+     * @param testCases test case files, relative to the project
+     * @return List the failed test cases
+     */
+    public List<String> getRecentFailures(@Nonnull List<String> testCases) {
+        List<String> failures = new ArrayList<>();
+        for (String testCase : testCases) {
+            Integer failedBuild = failedBuilds.get(getKey(testCase));
+            if (failedBuild != null && failedBuild < buildNumber && failedBuild >= buildNumber - MAX_BUILDS) {
+                failures.add(testCase);
+            }
+        }
+        failures.sort(Comparator.<String>comparingInt(testCase -> -failedBuilds.get(getKey(testCase)))
+                .thenComparing(testCase -> getDuration(testCase), Comparator.nullsLast(Comparator.reverseOrder())));
+        return failures;
+    }
+
+    /**
+     * Records the results of a shard. A JUnit test case is matched to the test case file of the shard with the same path,
+     * or else with the same name if only one file of the shard has it; an ambiguous name is not recorded.
+     *
+     * @param shardTestCases test case files of the shard, relative to the project
+     * @param results        test cases of the shard report
+     */
+    public void record(@Nonnull List<String> shardTestCases, @Nonnull List<JUnitReports.TestCaseOutcome> results) {
+        Set<String> paths = new HashSet<>();
+        Map<String, List<String>> pathsByName = new HashMap<>();
+        for (String testCase : shardTestCases) {
+            String key = getKey(testCase);
+            paths.add(key);
+            pathsByName.computeIfAbsent(getName(key), k -> new ArrayList<>()).add(key);
+        }
+
+        for (JUnitReports.TestCaseOutcome result : results) {
+            String key = getKey(result.getName());
+            if (!paths.contains(key)) {
+                List<String> candidates = pathsByName.getOrDefault(getName(key), Collections.emptyList());
+                if (candidates.size() != 1) {
+                    continue;
+                }
+                key = candidates.get(0);
+            }
+            durations.put(key, result.getDuration());
+            if (result.isFailed()) {
+                failedBuilds.put(key, buildNumber);
+            }
+        }
+    }
+
+    /**
+     * Saves the history, keeping only the test cases still in the project
+     *
+     * @param testCases test case files of the project
+     */
+    public void save(@Nonnull List<String> testCases) throws IOException {
+        JSONObject entries = new JSONObject();
+        for (String testCase : testCases) {
+            String key = getKey(testCase);
+            JSONObject entry = new JSONObject();
+            if (durations.containsKey(key)) {
+                entry.put(DURATION, durations.get(key));
+            }
+            if (failedBuilds.containsKey(key)) {
+                entry.put(FAILED_BUILD, failedBuilds.get(key));
+            }
+            if (entry.length() > 0) {
+                entries.put(key, entry);
+            }
+        }
+        JSONObject history = new JSONObject();
+        history.put("build", buildNumber);
+        history.put("testCases", entries);
+
+        File parentDir = historyFile.getParentFile();
+        if (!parentDir.isDirectory() && !parentDir.mkdirs()) {
+            throw new IOException("Unable to create the directory " + parentDir);
+        }
+        // concurrent builds of the job may save at the same time, the last one wins
+        File writing = new File(parentDir, historyFile.getName() + "." + buildNumber + ".tmp");
+        Files.write(writing.toPath(), history.toString().getBytes(StandardCharsets.UTF_8));
+        Files.move(writing.toPath(), historyFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Identifies a test case by its project relative path, without extension and in lower case
+     */
+    static String getKey(@Nonnull String testCase) {
+        String key = TestImpact.normalize(testCase);
+        return key.endsWith(".xaml") ? key.substring(0, key.length() - ".xaml".length()) : key;
+    }
+
+    private static String getName(@Nonnull String key) {
+        return key.substring(key.lastIndexOf('/') + 1);
+    }
+}
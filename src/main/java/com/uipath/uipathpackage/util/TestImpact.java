@@ -0,0 +1,317 @@
+package com.uipath.uipathpackage.util;
+
+import hudson.FilePath;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import hudson.remoting.VirtualChannel;
+import hudson.scm.ChangeLogSet;
+import jenkins.MasterToSlaveFileCallable;
+import jenkins.scm.RunWithSCM;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * Selects the test cases of a test project impacted by the changes of the build.
+ * The test cases depend on the workflows they invoke, directly or not, read from the InvokeWorkflowFile activities.
+ * The dependency index is kept with the job and diffed against the SCM change sets of the builds since it was written;
+ * the whole project is tested when the index is missing or stale, when a file other than a workflow changed,
+ * when the changed paths cannot be mapped to the workspace, e.g. a checkout into a subfolder, or when only files outside
+ * of the project changed. A test case invoking a workflow by an expression is impacted by any change, and a test case
+ * invoking a workflow outside of the project by any change outside of the project.
+ */
+public final class TestImpact {
+    private static final String INVOKE_WORKFLOW_FILE = "InvokeWorkflowFile";
+    private static final String WORKFLOW_FILE_NAME = "WorkflowFileName";
+    // dependency of a test case invoking a workflow by an expression, impacted by any change
+    private static final String ANY_WORKFLOW = "*";
+    // prefix of the workflows outside of the project, which are not indexed
+    private static final String OUTSIDE_PROJECT = "../";
+    private static final int MAX_BUILDS = 50;
+
+    private final File indexFile;
+    private final Map<String, Set<String>> dependencies;
+    private final List<String> selected;
+
+    private TestImpact(@Nonnull File indexFile, @Nonnull Map<String, Set<String>> dependencies, @CheckForNull List<String> selected) {
+        this.indexFile = indexFile;
+        this.dependencies = dependencies;
+        this.selected = selected;
+    }
+
+    /**
+     * Indexes the test project and selects the test cases impacted by the changes since the last index
+     *
+     * @param run         current build
+     * @param workspace   workspace of the build, the root of the SCM paths
+     * @param projectJson project.json of the test project
+     * @param testCases   test cases of the project
+     * @param alwaysRun   test cases to run regardless of the changes, e.g. the recent failures
+     * @param listener    task listener
+     * @return TestImpact the selection, to save once the selected test cases ran
+     */
+    public static TestImpact select(@Nonnull Run<?, ?> run, @Nonnull FilePath workspace, @Nonnull FilePath projectJson, @Nonnull List<String> testCases,
+                                    @Nonnull Collection<String> alwaysRun, @Nonnull TaskListener listener) throws IOException, InterruptedException {
+        FilePath projectDir = Objects.requireNonNull(projectJson.getParent());
+        Map<String, Set<String>> invocations = projectDir.act(new IndexCallable());
+        Map<String, Set<String>> dependencies = new TreeMap<>();
+        for (String testCase : testCases) {
+            dependencies.put(normalize(testCase), getClosure(normalize(testCase), invocations));
+        }
+
+        File indexFile = new File(run.getParent().getRootDir(), "uipath-test-impact/" + Hashes.combine(projectJson.getRemote()) + ".json");
+        List<String> selected = selectImpacted(run, workspace, projectDir, testCases, alwaysRun, dependencies, indexFile, listener);
+        return new TestImpact(indexFile, dependencies, selected);
+    }
+
+    /**
+     * @return List the impacted test cases, null to run the whole project
+     */
+    @CheckForNull
+    public List<String> getSelected() {
+        return selected;
+    }
+
+    /**
+     * Saves the index of the build, the next build diffs its changes against it
+     *
+     * @param run build which ran the selected test cases
+     */
+    public void save(@Nonnull Run<?, ?> run) throws IOException {
+        JSONObject index = new JSONObject();
+        index.put("build", run.getNumber());
+        JSONObject testCases = new JSONObject();
+        for (Map.Entry<String, Set<String>> entry : dependencies.entrySet()) {
+            testCases.put(entry.getKey(), new JSONArray(entry.getValue()));
+        }
+        index.put("testCases", testCases);
+
+        File parentDir = indexFile.getParentFile();
+        if (!parentDir.isDirectory() && !parentDir.mkdirs()) {
+            throw new IOException("Unable to create the directory " + parentDir);
+        }
+        Files.write(indexFile.toPath(), index.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    @CheckForNull
+    private static List<String> selectImpacted(@Nonnull Run<?, ?> run, @Nonnull FilePath workspace, @Nonnull FilePath projectDir, @Nonnull List<String> testCases,
+                                               @Nonnull Collection<String> alwaysRun, @Nonnull Map<String, Set<String>> dependencies,
+                                               @Nonnull File indexFile, @Nonnull TaskListener listener) throws IOException, InterruptedException {
+        if (!indexFile.isFile()) {
+            listener.getLogger().println("Test impact: no dependency index yet, running every test case");
+            return null;
+        }
+        JSONObject index;
+        try {
+            index = new JSONObject(new String(Files.readAllBytes(indexFile.toPath()), StandardCharsets.UTF_8));
+        } catch (JSONException e) {
+            listener.getLogger().println("Test impact: unreadable dependency index, running every test case");
+            return null;
+        }
+
+        String projectPrefix = getRelativePath(workspace, projectDir);
+        if (projectPrefix == null) {
+            listener.getLogger().println("Test impact: the test project is outside of the workspace, running every test case");
+            return null;
+        }
+        Set<String> changedFiles = getChangedFiles(run, index.optInt("build", -1));
+        if (changedFiles == null) {
+            listener.getLogger().println("Test impact: the dependency index is stale, running every test case");
+            return null;
+        }
+
+        if (changedFiles.isEmpty()) {
+            listener.getLogger().println("Test impact: no change since build #" + index.optInt("build"));
+        } else {
+            // the SCM paths are relative to the repository root, which is not the workspace when checked out into a subfolder
+            String missingFile = workspace.act(new FindMissingCallable(new ArrayList<>(changedFiles)));
+            if (missingFile != null) {
+                listener.getLogger().println("Test impact: the changed file " + missingFile + " is not in the workspace, running every test case");
+                return null;
+            }
+        }
+
+        Set<String> changedWorkflows = new HashSet<>();
+        int outsideChanges = 0;
+        for (String changedFile : changedFiles) {
+            String path = normalize(changedFile);
+            if (!projectPrefix.isEmpty() && !path.startsWith(projectPrefix + "/")) {
+                outsideChanges++;
+                continue;
+            }
+            String projectFile = projectPrefix.isEmpty() ? path : path.substring(projectPrefix.length() + 1);
+            if (!projectFile.endsWith(".xaml")) {
+                listener.getLogger().println("Test impact: " + projectFile + " changed, running every test case");
+                return null;
+            }
+            changedWorkflows.add(projectFile);
+        }
+        if (outsideChanges > 0 && changedWorkflows.isEmpty()) {
+            listener.getLogger().println("Test impact: none of the " + outsideChanges + " changed files is in the project, running every test case");
+            return null;
+        }
+        if (outsideChanges > 0) {
+            listener.getLogger().println("Test impact: " + outsideChanges + " changed files outside of the project only impact the test cases invoking workflows outside of the project");
+        }
+
+        boolean outsideChanged = outsideChanges > 0;
+        JSONObject indexedTestCases = index.optJSONObject("testCases");
+        Set<String> alwaysRunKeys = new HashSet<>();
+        for (String testCase : alwaysRun) {
+            alwaysRunKeys.add(normalize(testCase));
+        }
+        List<String> impacted = new ArrayList<>();
+        for (String testCase : testCases) {
+            String key = normalize(testCase);
+            Set<String> closure = dependencies.get(key);
+            boolean isNew = indexedTestCases == null || !indexedTestCases.has(key);
+            boolean outsideImpacted = outsideChanged && closure.stream().anyMatch(workflow -> workflow.startsWith(OUTSIDE_PROJECT));
+            if (isNew || alwaysRunKeys.contains(key) || closure.contains(ANY_WORKFLOW) || outsideImpacted || !Collections.disjoint(closure, changedWorkflows)) {
+                impacted.add(testCase);
+            }
+        }
+        listener.getLogger().println("Test impact: " + changedWorkflows.size() + " workflows changed since build #" + index.optInt("build")
+                + ", running " + impacted.size() + " of " + testCases.size() + " test cases");
+        return impacted;
+    }
+
+    /**
+     * Collects the files changed by the builds since the build of the index
+     *
+     * @return Set the changed files relative to the repository root, with forward slashes, null if the changes since the index are unknown
+     */
+    @CheckForNull
+    private static Set<String> getChangedFiles(@Nonnull Run<?, ?> run, int indexBuild) {
+        Set<String> changedFiles = new HashSet<>();
+        Run<?, ?> current = run;
+        for (int i = 0; i < MAX_BUILDS && current != null && current.getNumber() > indexBuild; i++, current = current.getPreviousBuild()) {
+            if (!(current instanceof RunWithSCM)) {
+                return null;
+            }
+            for (ChangeLogSet<? extends ChangeLogSet.Entry> changeSet : ((RunWithSCM<?, ?>) current).getChangeSets()) {
+                for (ChangeLogSet.Entry entry : changeSet) {
+                    for (String path : entry.getAffectedPaths()) {
+                        changedFiles.add(path.replace('\\', '/'));
+                    }
+                }
+            }
+        }
+        return current != null && current.getNumber() == indexBuild ? changedFiles : null;
+    }
+
+    @CheckForNull
+    private static String getRelativePath(@Nonnull FilePath workspace, @Nonnull FilePath projectDir) {
+        String root = normalize(workspace.getRemote());
+        String project = normalize(projectDir.getRemote());
+        if (project.equals(root)) {
+            return "";
+        }
+        return project.startsWith(root + "/") ? project.substring(root.length() + 1) : null;
+    }
+
+    private static Set<String> getClosure(@Nonnull String workflow, @Nonnull Map<String, Set<String>> invocations) {
+        Set<String> closure = new TreeSet<>();
+        Deque<String> pending = new ArrayDeque<>();
+        pending.add(workflow);
+        while (!pending.isEmpty()) {
+            String current = pending.pop();
+            if (closure.add(current)) {
+                pending.addAll(invocations.getOrDefault(current, Collections.emptySet()));
+            }
+        }
+        return closure;
+    }
+
+    /**
+     * Normalizes a path for comparison, with forward slashes and lower case as Windows paths are case insensitive
+     */
+    static String normalize(@Nonnull String path) {
+        String normalized = path.replace('\\', '/').trim().toLowerCase(Locale.ENGLISH);
+        while (normalized.startsWith("./")) {
+            normalized = normalized.substring(2);
+        }
+        while (normalized.endsWith("/") && normalized.length() > 1) {
+            normalized = normalized.substring(0, normalized.length() - 1);
+        }
+        return normalized;
+    }
+
+    /**
+     * Finds a changed file missing from the workspace, a deleted file included, as its test cases cannot be told
+     */
+    private static final class FindMissingCallable extends MasterToSlaveFileCallable<String> {
+        private static final long serialVersionUID = 1L;
+        private final List<String> paths;
+
+        private FindMissingCallable(@Nonnull List<String> paths) {
+            this.paths = paths;
+        }
+
+        @Override
+        public String invoke(File workspace, VirtualChannel channel) {
+            for (String path : paths) {
+                if (!new File(workspace, path).exists()) {
+                    return path;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Reads the workflows invoked by each workflow of the project, by project relative path
+     */
+    private static final class IndexCallable extends MasterToSlaveFileCallable<Map<String, Set<String>>> {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public Map<String, Set<String>> invoke(File projectDir, VirtualChannel channel) throws IOException {
+            Path root = projectDir.toPath();
+            Map<String, Set<String>> invocations = new HashMap<>();
+            try (Stream<Path> walk = Files.walk(root)) {
+                Iterator<Path> files = walk.filter(file -> file.toString().toLowerCase(Locale.ENGLISH).endsWith(".xaml")).iterator();
+                while (files.hasNext()) {
+                    Path file = files.next();
+                    String relativePath = normalize(root.relativize(file).toString());
+                    if (relativePath.startsWith(".")) {
+                        continue;
+                    }
+                    invocations.put(relativePath, readInvocations(file));
+                }
+            }
+            return invocations;
+        }
+
+        private static Set<String> readInvocations(@Nonnull Path workflow) throws IOException {
+            Set<String> invoked = new HashSet<>();
+            try (InputStream input = Files.newInputStream(workflow)) {
+                XMLStreamReader reader = JUnitReports.newInputFactory().createXMLStreamReader(input);
+                while (reader.hasNext()) {
+                    if (reader.next() == XMLStreamConstants.START_ELEMENT && INVOKE_WORKFLOW_FILE.equals(reader.getLocalName())) {
+                        String fileName = reader.getAttributeValue(null, WORKFLOW_FILE_NAME);
+                        // a literal path, otherwise a VB or C# expression resolved at runtime
+                        invoked.add(fileName != null && !fileName.startsWith("[") && !fileName.isEmpty() ? normalize(fileName) : ANY_WORKFLOW);
+                    }
+                }
+                reader.close();
+            } catch (XMLStreamException e) {
+                throw new IOException("Unable to read the workflow " + workflow, e);
+            }
+            return invoked;
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.uipath.uipathpackage.util;
+
+import hudson.FilePath;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Splits the test cases of a test project into shards of similar duration.
+ * The CLI runs every publishable test case of a project, so a shard is a copy of the project
+ * in which only the test cases of the shard are publishable.
+ */
+public final class TestShards {
+    private static final String DESIGN_OPTIONS = "designOptions";
+    private static final String FILE_INFO_COLLECTION = "fileInfoCollection";
+    private static final String EDITING_STATUS = "editingStatus";
+    private static final String PUBLISHABLE = "Publishable";
+    private static final String IN_PROGRESS = "InProgress";
+    private static final String EXCLUDED_FOLDERS = ".local/**,.git/**,.tmh/**,.objects/**";
+    // duration assumed for a test case without history
+    private static final float DEFAULT_DURATION_SECONDS = 60;
+
+    private TestShards() {
+        // Prevent instantiation
+    }
+
+    /**
+     * Lists the publishable test cases of a test project
+     *
+     * @param projectJson project.json of the test project
+     * @return List the test case files, relative to the project
+     */
+    public static List<String> listTestCases(@Nonnull FilePath projectJson) throws IOException, InterruptedException {
+        List<String> testCases = new ArrayList<>();
+        JSONArray files = getFileInfoCollection(readProject(projectJson), projectJson);
+        for (int i = 0; i < files.length(); i++) {
+            JSONObject file = files.optJSONObject(i);
+            if (file != null && file.has("testCaseId") && PUBLISHABLE.equalsIgnoreCase(file.optString(EDITING_STATUS))) {
+                testCases.add(file.optString("fileName"));
+            }
+        }
+        return testCases;
+    }
+
+    /**
+     * Splits the test cases into shards, longest first onto the shard with the shortest total,
+     * the test cases without history counting as the median known duration
+     *
+     * @param testCases test case files
+     * @param history   durations of the previous builds
+     * @param shards    number of shards
+     * @return List the test cases of each shard, without the empty shards
+     */
+    public static List<List<String>> split(@Nonnull List<String> testCases, @Nonnull TestHistory history, int shards) {
+        List<Float> known = new ArrayList<>();
+        for (String testCase : testCases) {
+            Float duration = history.getDuration(testCase);
+            if (duration != null) {
+                known.add(duration);
+            }
+        }
+        Collections.sort(known);
+        float defaultDuration = known.isEmpty() ? DEFAULT_DURATION_SECONDS : known.get(known.size() / 2);
+
+        Map<String, Float> durations = new HashMap<>();
+        for (String testCase : testCases) {
+            Float duration = history.getDuration(testCase);
+            durations.put(testCase, duration != null ? duration : defaultDuration);
+        }
+        List<String> sorted = new ArrayList<>(testCases);
+        sorted.sort(Comparator.comparing(durations::get).reversed());
+
+        List<List<String>> result = new ArrayList<>();
+        float[] totals = new float[shards];
+        for (int i = 0; i < shards; i++) {
+            result.add(new ArrayList<>());
+        }
+        for (String testCase : sorted) {
+            int shortest = 0;
+            for (int i = 1; i < shards; i++) {
+                if (totals[i] < totals[shortest]) {
+                    shortest = i;
+                }
+            }
+            result.get(shortest).add(testCase);
+            totals[shortest] += durations.get(testCase);
+        }
+        result.removeIf(List::isEmpty);
+        return result;
+    }
+
+    /**
+     * Estimated duration of a shard, in seconds
+     */
+    public static float estimateDuration(@Nonnull List<String> shard, @Nonnull TestHistory history) {
+        float total = 0;
+        for (String testCase : shard) {
+            Float duration = history.getDuration(testCase);
+            total += duration != null ? duration : DEFAULT_DURATION_SECONDS;
+        }
+        return total;
+    }
+
+    /**
+     * Copies the test project in which only the test cases of the shard are publishable.
+     * The project is renamed after the shard so the concurrent shards do not publish the same package.
+     *
+     * @param projectJson project.json of the test project
+     * @param shardDir    folder of the copy
+     * @param testCases   test cases of the shard
+     * @param shard       shard number, from 1, 0 to keep the project name when the project runs as a single shard
+     * @return FilePath project.json of the copy
+     */
+    public static FilePath createShardProject(@Nonnull FilePath projectJson, @Nonnull FilePath shardDir, @Nonnull Collection<String> testCases, int shard) throws IOException, InterruptedException {
+        FilePath projectDir = projectJson.getParent();
+        if (projectDir == null) {
+            throw new IOException("Invalid test project path " + projectJson.getRemote());
+        }
+        shardDir.mkdirs();
+        projectDir.copyRecursiveTo("**/*", EXCLUDED_FOLDERS, shardDir);
+
+        JSONObject project = readProject(projectJson);
+        JSONArray files = getFileInfoCollection(project, projectJson);
+        // the test cases of the shard are listed first, in the order of the shard
+        Map<String, JSONObject> shardFiles = new LinkedHashMap<>();
+        for (String testCase : testCases) {
+            shardFiles.put(testCase, null);
+        }
+        List<JSONObject> otherFiles = new ArrayList<>();
+        for (int i = 0; i < files.length(); i++) {
+            JSONObject file = files.optJSONObject(i);
+            if (file == null) {
+                continue;
+            }
+            String fileName = file.optString("fileName");
+            if (!file.has("testCaseId") || !PUBLISHABLE.equalsIgnoreCase(file.optString(EDITING_STATUS))) {
+                otherFiles.add(file);
+            } else if (shardFiles.containsKey(fileName) && shardFiles.get(fileName) == null) {
+                shardFiles.put(fileName, file);
+            } else {
+                file.put(EDITING_STATUS, IN_PROGRESS);
+                otherFiles.add(file);
+            }
+        }
+        JSONArray orderedFiles = new JSONArray();
+        for (JSONObject file : shardFiles.values()) {
+            if (file != null) {
+                orderedFiles.put(file);
+            }
+        }
+        for (JSONObject file : otherFiles) {
+            orderedFiles.put(file);
+        }
+        project.getJSONObject(DESIGN_OPTIONS).put(FILE_INFO_COLLECTION, orderedFiles);
+        if (shard > 0) {
+            project.put("name", project.optString("name", "Tests") + ".Shard" + shard);
+        }
+
+        FilePath shardProjectJson = shardDir.child(projectJson.getName());
+        shardProjectJson.write(project.toString(2), StandardCharsets.UTF_8.name());
+        return shardProjectJson;
+    }
+
+    private static JSONObject readProject(@Nonnull FilePath projectJson) throws IOException, InterruptedException {
+        try {
+            return new JSONObject(projectJson.readToString());
+        } catch (JSONException e) {
+            throw new IOException("Unable to read the test project " + projectJson.getRemote(), e);
+        }
+    }
+
+    private static JSONArray getFileInfoCollection(@Nonnull JSONObject project, @Nonnull FilePath projectJson) throws IOException {
+        JSONObject designOptions = project.optJSONObject(DESIGN_OPTIONS);
+        JSONArray files = designOptions != null ? designOptions.optJSONArray(FILE_INFO_COLLECTION) : null;
+        if (files == null) {
+            throw new IOException("The test project " + projectJson.getRemote() + " has no test cases");
+        }
+        return files;
+    }
+}
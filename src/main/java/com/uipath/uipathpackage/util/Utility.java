@@ -3,7 +3,9 @@ package com.uipath.uipathpackage.util;
 import com.cloudbees.plugins.credentials.CredentialsProvider;
 import com.cloudbees.plugins.credentials.common.StandardUsernamePasswordCredentials;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.google.common.util.concurrent.Striped;
 import com.uipath.uipathpackage.configuration.UiPathCliConfiguration;
+import com.uipath.uipathpackage.configuration.UiPathGlobalConfiguration;
 import com.uipath.uipathpackage.entries.SelectEntry;
 import com.uipath.uipathpackage.entries.authentication.ExternalAppAuthenticationEntry;
 import com.uipath.uipathpackage.entries.authentication.TokenAuthenticationEntry;
@@ -16,29 +18,25 @@ import hudson.FilePath;
 import hudson.Launcher;
 import hudson.model.Run;
 import hudson.model.TaskListener;
-
+import hudson.remoting.Channel;
+import hudson.remoting.VirtualChannel;
 import hudson.util.StreamTaskListener;
 import org.apache.commons.lang.StringUtils;
 import org.jenkinsci.plugins.plaincredentials.StringCredentials;
 import org.json.JSONObject;
-import org.springframework.http.HttpMethod;
-import org.springframework.http.MediaType;
-import org.springframework.web.client.*;
 
+import javax.annotation.CheckForNull;
 import javax.annotation.Nonnull;
 import java.io.*;
 import java.net.URISyntaxException;
 import java.net.URL;
-import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.security.InvalidParameterException;
 import java.util.*;
-import java.util.jar.JarEntry;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
 import java.util.jar.JarException;
-import java.util.jar.JarFile;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
-import java.util.stream.Collectors;
 
 import static com.uipath.uipathpackage.configuration.UiPathCliConfiguration.DEFAULT_CLI_VERSION_KEY;
 
@@ -46,6 +44,26 @@ import static com.uipath.uipathpackage.configuration.UiPathCliConfiguration.DEFA
  * Utility Class used by UiPathDeploy and UiPathPack
  */
 public class Utility {
+    /**
+     * Deduplicates the population of a cache directory, all the builds of a node are orchestrated by this controller.
+     */
+    private static final Striped<Lock> CACHE_DIRECTORY_LOCKS = Striped.lazyWeakLock(64);
+
+    /**
+     * Maximum time a build waits for a concurrent build populating the same cache directory,
+     * after which it populates its own staging copy in parallel.
+     */
+    private static final long CACHE_DIRECTORY_LOCK_WAIT_SECONDS = 30;
+
+    private static final long STALE_STAGING_DIRECTORY_MILLIS = TimeUnit.HOURS.toMillis(24);
+
+    /**
+     * Fills a staging directory which then replaces a cache directory in a single rename.
+     */
+    public interface CacheDirectoryWriter {
+        void write(@Nonnull FilePath stagingDir) throws IOException, InterruptedException, URISyntaxException;
+    }
+
     /**
      * Validates the param for null or empty check
      *
@@ -69,29 +87,69 @@ public class Utility {
     }
 
     public int execute(@Nonnull String command, @Nonnull SerializableCliOptions options, @Nonnull FilePath remoteTempDir, @Nonnull TaskListener listener, @Nonnull EnvVars envVars, @Nonnull Launcher launcher, boolean throwExceptionOnFailure) throws IOException, InterruptedException, URISyntaxException {
+        return execute(Collections.singletonList(new RunOptions(command, options)), remoteTempDir, listener, envVars, launcher, throwExceptionOnFailure).get(0);
+    }
+
+    /**
+     * Runs a sequence of CLI operations, resolving the CLI and preparing all the argument files once.
+     * The CLI runs a single operation per process, so each operation still gets its own process and exit code.
+     *
+     * @param operations              operations to run, in order
+     * @param remoteTempDir           temporary directory receiving the argument files
+     * @param listener                task listener
+     * @param envVars                 environment variables
+     * @param launcher                launcher
+     * @param throwExceptionOnFailure whether a failed operation aborts the remaining ones
+     * @return List the exit code of each operation that ran
+     */
+    public List<Integer> execute(@Nonnull List<RunOptions> operations, @Nonnull FilePath remoteTempDir, @Nonnull TaskListener listener, @Nonnull EnvVars envVars, @Nonnull Launcher launcher, boolean throwExceptionOnFailure) throws IOException, InterruptedException, URISyntaxException {
         if (remoteTempDir.getRemote().toUpperCase().contains(":\\WINDOWS\\SYSTEM32")) {
             throw new AbortException("The plugin cannot be executed in a workspace path inside the WINDOWS folder. Please use a custom workspace folder that is outside the WINDOWS folder for this build definition or reinstall Jenkins and use a local user account instead.");
         }
 
-        UiPathCliConfiguration cliConfiguration = UiPathCliConfiguration.getInstance();
-        Optional<FilePath> cachedCliPath = cliConfiguration.getCliPath(launcher, envVars, cliConfiguration.getSelectedOrDefaultCliVersionKey(envVars));
+        FilePath cliPath = resolveCliPath(listener, envVars, launcher);
 
-        FilePath cliPath;
-        if (cachedCliPath.isPresent()) {
-            cliPath = cachedCliPath.get();
-        } else {
-            FilePath cliRootCacheDirPath = cliConfiguration.getCliRootCachedDirectoryPath(launcher, envVars, cliConfiguration.getDefaultCliVersionKey());
-            cliPath = extractCliApp(cliRootCacheDirPath, listener, envVars);
+        List<FilePath> commandOptionsFiles = new ArrayList<>();
+        for (RunOptions operation : operations) {
+            commandOptionsFiles.add(remoteTempDir.createTextTempFile("uipcliargs", "", new JSONObject(operation).toString()));
         }
 
-        FilePath commandOptionsFile = remoteTempDir.createTextTempFile("uipcliargs", "", new JSONObject(new RunOptions(command, options)).toString());
+        EnvVars cliEnvVars = new EnvVars(envVars);
+        NuGetCache nuGetCache = NuGetCache.open(launcher, cliEnvVars, listener);
+        List<Integer> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < operations.size(); i++) {
+                if (operations.size() > 1) {
+                    listener.getLogger().println("[" + (i + 1) + "/" + operations.size() + "] Running " + operations.get(i).getType());
+                }
 
-        int result = launcher.launch().cmds(this.buildCommandLine(cliPath, commandOptionsFile, envVars)).envs(envVars).stdout(listener).pwd(cliPath.getParent()).start().join();
-        if (throwExceptionOnFailure && result != 0) {
-            throw new AbortException("Failed to run the command, the CLI failed with error code " + result);
+                int result = launchCli(this.buildCommandLine(cliPath, commandOptionsFiles.get(i), cliEnvVars), cliPath, listener.getLogger(), listener, cliEnvVars, launcher);
+                results.add(result);
+                if (throwExceptionOnFailure && result != 0) {
+                    throw new AbortException("Failed to run the command, the CLI failed with error code " + result);
+                }
+            }
+        } finally {
+            if (nuGetCache != null) {
+                nuGetCache.close(listener);
+            }
         }
 
-        return result;
+        return results;
+    }
+
+    /**
+     * Resolves the selected CLI, extracting the default one when the selected one is not cached
+     */
+    private FilePath resolveCliPath(@Nonnull TaskListener listener, @Nonnull EnvVars envVars, @Nonnull Launcher launcher) throws IOException, InterruptedException, URISyntaxException {
+        UiPathCliConfiguration cliConfiguration = UiPathCliConfiguration.getInstance();
+        Optional<FilePath> cachedCliPath = cliConfiguration.getCliPath(launcher, envVars, cliConfiguration.getSelectedOrDefaultCliVersionKey(envVars));
+        if (cachedCliPath.isPresent()) {
+            return cachedCliPath.get();
+        }
+
+        FilePath cliRootCacheDirPath = cliConfiguration.getCliRootCachedDirectoryPath(launcher, envVars, cliConfiguration.getDefaultCliVersionKey());
+        return extractCliApp(cliRootCacheDirPath, listener, envVars);
     }
 
     public  CliDetails getCliDetails(
@@ -113,20 +171,53 @@ public class Utility {
             cliGetFlow = CliGetFlow.ExtractDefaultCli;
         }
 
-        ByteArrayOutputStream commandOutput = new ByteArrayOutputStream();
+        String cacheKey = CliVersionCache.getKey(getNodeName(launcher.getChannel()), cliPath);
+        ActualVersion actualVersion = CliVersionCache.get(cacheKey);
+        if (actualVersion == null) {
+            ByteArrayOutputStream commandOutput = new ByteArrayOutputStream();
 
-        StreamTaskListener execListener = new StreamTaskListener(commandOutput, run.getCharset());
+            StreamTaskListener execListener = new StreamTaskListener(commandOutput, run.getCharset());
 
-        launcher.launch().cmds(this.buildVersionArgs(cliPath, envVars)).envs(envVars).stdout(execListener).pwd(cliPath.getParent()).start().join();
+            launchCli(this.buildVersionArgs(cliPath, envVars), cliPath, execListener.getLogger(), listener, envVars, launcher);
 
-        String stdoutText = commandOutput.toString(run.getCharset().name());
+            String stdoutText = commandOutput.toString(run.getCharset().name());
+            actualVersion = extractActualVersionFromText(stdoutText);
+            CliVersionCache.put(cacheKey, actualVersion);
+        } else {
+            listener.getLogger().println("Using cached UiPath CLI version " + actualVersion.getMajor() + "." + actualVersion.getMinor() + " for " + cliPath.getRemote());
+        }
 
         CliDetails response = new CliDetails();
-        response.setActualVersion(extractActualVersionFromText(stdoutText));
+        response.setActualVersion(actualVersion);
         response.setGetFlow(cliGetFlow);
         return response;
     }
 
+    /**
+     * Identifies the node behind a channel, used to scope caches kept on the controller.
+     *
+     * @param channel channel of the node, null or the local channel for the controller
+     * @return name of the node
+     */
+    public static String getNodeName(@CheckForNull VirtualChannel channel) {
+        if (channel instanceof Channel) {
+            return ((Channel) channel).getName();
+        }
+        return "built-in";
+    }
+
+    /**
+     * Single place where a CLI process is spawned, so that every invocation is timed the same way.
+     * The CLI has no resident/server mode, hence each call pays the full .NET start-up cost.
+     */
+    private int launchCli(@Nonnull String[] cmds, @Nonnull FilePath cliPath, @Nonnull OutputStream stdout, @Nonnull TaskListener listener, @Nonnull EnvVars envVars, @Nonnull Launcher launcher) throws IOException, InterruptedException {
+        long startTime = System.nanoTime();
+        int result = launcher.launch().cmds(cmds).envs(envVars).stdout(stdout).pwd(cliPath.getParent()).start().join();
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+        listener.getLogger().println("UiPath CLI process exited with code " + result + " after " + elapsedMillis + " ms");
+        return result;
+    }
+
     private ActualVersion extractActualVersionFromText(String text) {
         Pattern versionPattern = Pattern.compile("uipcli (\\d+)\\.(\\d+)\\.\\d+");
 
@@ -152,65 +243,214 @@ public class Utility {
         }
     }
 
+    /**
+     * Installs a CLI version into the cache of the node the launcher runs on, unless it is already cached.
+     * The default version is extracted from the plugin, other versions are extracted from the provided nupkg or downloaded.
+     *
+     * @param cliVersionKey CLI version key
+     * @param cliNupkgPath  CLI package to extract, null to download it
+     * @param forceInstall  whether an already cached CLI is replaced
+     * @param launcher      launcher of the node
+     * @param envVars       environment variables
+     * @param listener      task listener
+     * @return boolean true if the CLI was installed, false if it was already cached
+     */
+    public boolean installCli(@Nonnull String cliVersionKey, @CheckForNull FilePath cliNupkgPath, boolean forceInstall, @Nonnull Launcher launcher, @Nonnull EnvVars envVars, @Nonnull TaskListener listener) throws IOException, InterruptedException, URISyntaxException {
+        PrintStream logger = listener.getLogger();
+        UiPathCliConfiguration cliConfiguration = UiPathCliConfiguration.getInstance();
+        boolean isSelectedCliAlreadyCached = cliConfiguration.getCliPath(launcher, envVars, cliVersionKey).isPresent();
+
+        logger.println(isSelectedCliAlreadyCached ? "cli is already cached.." : "cli is not found in cache..");
+
+        if (!forceInstall && isSelectedCliAlreadyCached) {
+            return false;
+        }
+
+        if (forceInstall) {
+            logger.println("force installing the cli , any previous cache for version " + cliVersionKey + " will be invalidate..");
+        }
+
+        FilePath cliRootCacheDirPath = cliConfiguration.getCliRootCachedDirectoryPath(launcher, envVars, cliVersionKey);
+
+        if (cliVersionKey.equals(cliConfiguration.getDefaultCliVersionKey())) {
+            logger.print("(caching) extracting the pre-packaged cli...");
+            extractCliApp(cliRootCacheDirPath, listener, envVars);
+        } else if (cliNupkgPath != null) {
+            if (!cliNupkgPath.exists()) {
+                logger.println("CliNupkgPath provided doesn't exists " + cliNupkgPath.getRemote());
+                throw new AbortException(com.uipath.uipathpackage.Messages.UiPathInstallPlatform_DescriptorImpl_Error_CliNupkgPath());
+            }
+            logger.print("(caching) extracting the provided cli-nuget...");
+            populateCacheDirectory(cliRootCacheDirPath, listener, forceInstall, cliNupkgPath::unzip);
+        } else {
+            UiPathCliConfiguration.Configuration configuration = cliConfiguration.getConfiguration().get(cliVersionKey);
+            FilePath downloadsRootPath = cliConfiguration.getCliRootDownloadsDirectoryPath(launcher, envVars, cliVersionKey);
+
+            String fileName = configuration.getName().concat(".").concat(configuration.getVersion().getComplete()).concat(".nupkg");
+
+            FilePath downloadCliPath = downloadsRootPath.child(fileName);
+            UiPathGlobalConfiguration globalConfiguration = UiPathGlobalConfiguration.get();
+            if (globalConfiguration != null && globalConfiguration.isCliMirror()) {
+                CliMirror.fetch(configuration, downloadCliPath, listener);
+            } else {
+                downloadCli(CliMirror.getSourceUrl(configuration), downloadCliPath, configuration.getSha512(), listener);
+            }
+
+            logger.print("(caching) extracting the downloaded cli...");
+            populateCacheDirectory(cliRootCacheDirPath, listener, forceInstall, downloadCliPath::unzip);
+        }
+        logger.println(" done!!");
+        return true;
+    }
+
     public FilePath extractCliApp(@Nonnull FilePath targetRootCacheDir, @Nonnull TaskListener listener, @Nonnull EnvVars env) throws IOException, InterruptedException, URISyntaxException {
         PrintStream logger = listener.getLogger();
         ResourceBundle rb = ResourceBundle.getBundle("config");
         FilePath targetCliPath = targetRootCacheDir.child("tools").child("uipcli.dll");
-        if (targetCliPath.exists())
+        if (CacheDirectoryManifest.isComplete(targetRootCacheDir))
         {
             logger.println("Using previously extracted UiPath CLI from " + targetCliPath);
             return targetCliPath;
         }
 
-        String pluginJarPath;
-
-        if (isServerOSWindows()) {
-            pluginJarPath = env.expand("${JENKINS_HOME}\\plugins\\uipath-automation-package\\WEB-INF\\lib\\uipath-automation-package.jar");
-        } else {
-            pluginJarPath = env.expand("${JENKINS_HOME}/plugins/uipath-automation-package/WEB-INF/lib/uipath-automation-package.jar");
-        }
-
-        logger.println("Expected plugin jar path on Jenkins master: " + pluginJarPath + ", extracting...");
-
-        // Copy relevant files to temp directory
-        copyPluginFilesToTempDir(listener, targetRootCacheDir, pluginJarPath);
+        String pluginJarPath = getPluginJarPath(env);
+        File pluginJar = new File(pluginJarPath);
+        String expectedChecksum = pluginJar.isFile() ? CliPayload.forJar(pluginJar).getChecksum() : null;
+        populateCacheDirectory(targetRootCacheDir, listener, false, expectedChecksum, stagingDir -> copyPluginFilesToTempDir(listener, stagingDir, pluginJarPath));
         return targetCliPath;
     }
 
-    public void downloadCli(String feedUrl,@Nonnull FilePath downloadPath, @Nonnull TaskListener listener) throws AbortException {
+    /**
+     * Populates a cache directory through a staging directory which is sealed with a completion marker
+     * and renamed into place, so builds never observe a partially written cache, even after a crash.
+     * A build waits a bounded time for a concurrent build populating the same directory, then populates its own copy
+     * and the first complete copy wins.
+     *
+     * @param targetDir cache directory to populate
+     * @param listener  task listener
+     * @param replace   whether an already populated directory is replaced
+     * @param writer    fills the staging directory
+     */
+    public void populateCacheDirectory(@Nonnull FilePath targetDir, @Nonnull TaskListener listener, boolean replace, @Nonnull CacheDirectoryWriter writer) throws IOException, InterruptedException, URISyntaxException {
+        populateCacheDirectory(targetDir, listener, replace, null, writer);
+    }
+
+    /**
+     * Populates a cache directory like {@link #populateCacheDirectory(FilePath, TaskListener, boolean, CacheDirectoryWriter)},
+     * rejecting the staged content if its content checksum differs from the expected one.
+     *
+     * @param targetDir        cache directory to populate
+     * @param listener         task listener
+     * @param replace          whether an already populated directory is replaced
+     * @param expectedChecksum expected content checksum of the staged content, or null to skip the check
+     * @param writer           fills the staging directory
+     */
+    public void populateCacheDirectory(@Nonnull FilePath targetDir, @Nonnull TaskListener listener, boolean replace, @CheckForNull String expectedChecksum, @Nonnull CacheDirectoryWriter writer) throws IOException, InterruptedException, URISyntaxException {
         PrintStream logger = listener.getLogger();
+        FilePath parentDir = Objects.requireNonNull(targetDir.getParent());
+        Lock lock = CACHE_DIRECTORY_LOCKS.get(getNodeName(targetDir.getChannel()) + "|" + targetDir.getRemote());
+        boolean locked = replace ? lockInterruptibly(lock) : lock.tryLock(CACHE_DIRECTORY_LOCK_WAIT_SECONDS, TimeUnit.SECONDS);
+        if (!locked) {
+            logger.println("Cache directory " + targetDir.getRemote() + " is being populated by a concurrent build, populating a private copy...");
+        }
 
-        RestTemplate restTemplate = new RestTemplate();
         try {
-            logger.println("Downloading CLI from "+ feedUrl);
+            if (!replace && CacheDirectoryManifest.isComplete(targetDir)) {
+                logger.println("Cache directory " + targetDir.getRemote() + " was populated by a concurrent build");
+                return;
+            }
 
-            RequestCallback requestCallback = request -> request.getHeaders()
-                    .setAccept(Arrays.asList(MediaType.APPLICATION_OCTET_STREAM, MediaType.ALL));
+            parentDir.mkdirs();
+            if (locked) {
+                deleteStaleStagingDirectories(parentDir, targetDir.getName());
+            }
 
-            ResponseExtractor<Void> responseExtractor = response -> {
-                try {
-                    downloadPath.copyFrom(response.getBody());
-                } catch (InterruptedException e) {
-                    e.printStackTrace(logger);
-                    throw new AbortException("error while writing nupkg to download directory ");
+            FilePath stagingDir = parentDir.child(targetDir.getName() + ".staging-" + UUID.randomUUID());
+            try {
+                stagingDir.mkdirs();
+                writer.write(stagingDir);
+                String checksum = CacheDirectoryManifest.write(stagingDir);
+                if (expectedChecksum != null && !expectedChecksum.equals(checksum)) {
+                    throw new AbortException("The content written to " + stagingDir.getRemote() + " does not match the expected checksum " + expectedChecksum);
                 }
-                return null;
-            };
 
-            restTemplate.execute(feedUrl, HttpMethod.GET, requestCallback, responseExtractor);
+                if (!replace && CacheDirectoryManifest.isComplete(targetDir)) {
+                    logger.println("Cache directory " + targetDir.getRemote() + " was populated by a concurrent build, discarding the private copy");
+                    return;
+                }
 
-            logger.println("Downloaded CLI successfully. @"+ downloadPath);
+                if (locked) {
+                    // only the lock owner clears leftovers, an unlocked build must not delete a copy published meanwhile
+                    targetDir.deleteRecursive();
+                }
+
+                try {
+                    stagingDir.renameTo(targetDir);
+                } catch (IOException e) {
+                    if (!CacheDirectoryManifest.isComplete(targetDir)) {
+                        throw e;
+                    }
+                    logger.println("Cache directory " + targetDir.getRemote() + " was published by a concurrent build");
+                }
+            } finally {
+                if (stagingDir.exists()) {
+                    stagingDir.deleteRecursive();
+                }
+            }
+        } finally {
+            if (locked) {
+                lock.unlock();
+            }
         }
-        catch (HttpClientErrorException hcre) {
-            if(Arrays.asList(301,302,303).contains(hcre.getRawStatusCode())) {
-                logger.println("Retrying Downloading CLI....");
-                downloadCli(hcre.getResponseHeaders().getLocation().toString(),downloadPath, listener);
+    }
+
+    private static boolean lockInterruptibly(@Nonnull Lock lock) throws InterruptedException {
+        lock.lockInterruptibly();
+        return true;
+    }
+
+    private static void deleteStaleStagingDirectories(@Nonnull FilePath parentDir, @Nonnull String targetName) throws IOException, InterruptedException {
+        long now = System.currentTimeMillis();
+        for (FilePath dir : parentDir.listDirectories()) {
+            if (dir.getName().startsWith(targetName + ".staging-") && now - dir.lastModified() > STALE_STAGING_DIRECTORY_MILLIS) {
+                dir.deleteRecursive();
             }
-            logger.println("Aborting Task Unable to Download CLI.... HttpStatus " + hcre.getRawStatusCode()+ " Response " + hcre.getResponseBodyAsString() + " Error " + hcre.getMessage());
-            throw new AbortException("unable to download the CLI from the public feed");
         }
-        catch (RestClientException rce) {
-            logger.println("Aborting Task Unable to Download CLI.... Error "+ rce.getMessage() + " Download Path "+downloadPath.getRemote());
+    }
+
+    private String getPluginJarPath(@Nonnull EnvVars env) {
+        String pluginJarPath;
+
+        if (isServerOSWindows()) {
+            pluginJarPath = env.expand("${JENKINS_HOME}\\plugins\\uipath-automation-package\\WEB-INF\\lib\\uipath-automation-package.jar");
+        } else {
+            pluginJarPath = env.expand("${JENKINS_HOME}/plugins/uipath-automation-package/WEB-INF/lib/uipath-automation-package.jar");
+        }
+        return pluginJarPath;
+    }
+
+    public void downloadCli(String feedUrl, @Nonnull FilePath downloadPath, @Nonnull TaskListener listener) throws IOException, InterruptedException {
+        downloadCli(feedUrl, downloadPath, null, listener);
+    }
+
+    /**
+     * Downloads the CLI package in resumable range chunks and verifies it against the expected SHA-512
+     *
+     * @param feedUrl        url of the CLI package
+     * @param downloadPath   destination of the package
+     * @param expectedSha512 hex encoded SHA-512 of the package, or null to skip the verification
+     * @param listener       task listener
+     */
+    public void downloadCli(String feedUrl, @Nonnull FilePath downloadPath, @CheckForNull String expectedSha512, @Nonnull TaskListener listener) throws IOException, InterruptedException {
+        PrintStream logger = listener.getLogger();
+        try {
+            logger.println("Downloading CLI from "+ feedUrl);
+            new CliDownloader(listener).download(feedUrl, downloadPath, expectedSha512);
+            logger.println("Downloaded CLI successfully. @"+ downloadPath);
+        } catch (AbortException e) {
+            throw e;
+        } catch (IOException e) {
+            logger.println("Aborting Task Unable to Download CLI.... Error "+ e.getMessage() + " Download Path "+downloadPath.getRemote());
             throw new AbortException("unable to download the CLI from the public feed");
         }
     }
@@ -249,6 +489,24 @@ public class Utility {
         }
     }
 
+    /**
+     * Copies credentials resolved once by {@link #setCredentialsFromCredentialsEntry} to other options
+     *
+     * @param source resolved credentials
+     * @param target options receiving the credentials
+     */
+    public static void copyCredentials(@Nonnull AuthenticatedOptions source, @Nonnull AuthenticatedOptions target) {
+        target.setUsername(source.getUsername());
+        target.setPassword(source.getPassword());
+        target.setRefreshToken(source.getRefreshToken());
+        target.setAccountName(source.getAccountName());
+        target.setAccountForApp(source.getAccountForApp());
+        target.setApplicationId(source.getApplicationId());
+        target.setApplicationSecret(source.getApplicationSecret());
+        target.setApplicationScope(source.getApplicationScope());
+        target.setAuthorizationUrl(source.getAuthorizationUrl());
+    }
+
     public void setJobRunFromStrategyEntry(SelectEntry strategy, JobOptions options) {
         if (strategy == null)
         {
@@ -324,32 +582,26 @@ public class Utility {
     }
 
     private void extractResourcesToTempFolder(FilePath tempDir, File jarfile, TaskListener listener) throws IOException, InterruptedException {
-        try (JarFile archive = new JarFile(jarfile)) {
-            // sort entries by name to always create folders first
-            List<? extends JarEntry> entries = archive.stream().sorted(Comparator.comparing(JarEntry::getName)).collect(Collectors.toList());
-            for (JarEntry entry : entries) {
-                if (!entry.getName().startsWith("cli")) {
-                    continue;
-                }
-
-                Path entryPath = Paths.get(entry.getName());
-                if (entryPath.getNameCount() <= 1) {
-                    continue;
-                }
-
-                String entryWithoutRootFolder = entryPath.subpath(1, entryPath.getNameCount()).toString();
-                FilePath destination = tempDir.child(entryWithoutRootFolder);
-
-                if (entry.isDirectory()) {
-                    destination.mkdirs();
-                } else {
-                    destination.copyFrom(archive.getInputStream(entry));
-                }
-            }
+        // the CLI payload is indexed and repacked once on the controller, then unpacked agent side as a single stream
+        File payloadArchive;
+        try {
+            payloadArchive = CliPayload.forJar(jarfile).getArchive();
         } catch (JarException e) {
             e.printStackTrace(listener.getLogger());
             throw e;
         }
+
+        long startTime = System.nanoTime();
+        try (InputStream payloadStream = new BufferedInputStream(new FileInputStream(payloadArchive))) {
+            tempDir.unzipFrom(payloadStream);
+        }
+        logTransferThroughput(listener, payloadArchive.length(), System.nanoTime() - startTime);
+    }
+
+    private static void logTransferThroughput(@Nonnull TaskListener listener, long bytes, long elapsedNanos) {
+        double seconds = Math.max(elapsedNanos, 1) / 1_000_000_000d;
+        double megabytes = bytes / (1024d * 1024d);
+        listener.getLogger().print(String.format(Locale.ENGLISH, "transferred %.1f MB in %.1f s (%.1f MB/s)...", megabytes, seconds, megabytes / seconds));
     }
 
     private void copyPluginFilesToTempDir(@Nonnull TaskListener listener, FilePath tempDir, String pluginJarPath) throws IOException, URISyntaxException, InterruptedException {
@@ -372,6 +624,7 @@ public class Utility {
                 }
             }
         } else {
+            listener.getLogger().println("Expected plugin jar path on Jenkins master: " + pluginJarPath + ", extracting...");
             listener.getLogger().print("Extracting cli to temp folder " + tempDir.getRemote() + "...");
             extractResourcesToTempFolder(tempDir, jar, listener);
             listener.getLogger().println("done!" );